@@ -0,0 +1,56 @@
+package spaceinvaders.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import spaceinvaders.EnemyFormation;
+import spaceinvaders.Game;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times building a formation, and speeding one up as happens on every kill.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FormationBenchmark {
+    @Param({"60", "1000", "10000"})
+    public int enemyCount;
+
+    private Game game;
+    private EnemyFormation formation;
+
+    @Setup(Level.Trial)
+    public void createGame() {
+        System.setProperty("java.awt.headless", "true");
+        game = new Game(true);
+        GameState.populate(game, enemyCount, 0);
+        formation = game.getEnemyFormation();
+    }
+
+    @Benchmark
+    public EnemyFormation construct() {
+        game.getEntities().getEnemies().clear();
+        int columns = GameState.columnsFor(enemyCount);
+        return new EnemyFormation(game, game.getEntities().getEnemies(), 1, (enemyCount + columns - 1) / columns, columns);
+    }
+
+    @Benchmark
+    public EnemyFormation increaseMovementSpeed() {
+        formation.increaseMovementSpeed();
+        return formation;
+    }
+}
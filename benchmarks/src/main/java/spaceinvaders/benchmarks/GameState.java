@@ -0,0 +1,74 @@
+package spaceinvaders.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import spaceinvaders.EnemyFormation;
+import spaceinvaders.Game;
+import spaceinvaders.entities.BulletPool;
+import spaceinvaders.entities.ShipSystem;
+
+import java.util.Random;
+
+/**
+ * A headless game filled with about a given number of enemies and a given
+ * number of bullets. The population is rebuilt before every iteration, since
+ * moving and colliding both change it, so each iteration starts from the same
+ * scene. Benchmarks using it should run a fixed number of ticks in a single
+ * shot rather than being called over and over.
+ * <p>
+ * Run from the project root so the sprites can be found.
+ */
+@State(Scope.Thread)
+public class GameState {
+    private static final long SEED = 42;
+
+    @Param({"60", "1000", "10000"})
+    public int enemyCount;
+
+    @Param({"10", "100", "1000"})
+    public int bulletCount;
+
+    public Game game;
+
+    @Setup(Level.Trial)
+    public void createGame() {
+        System.setProperty("java.awt.headless", "true");
+        game = new Game(true);
+        // leave the "press any key" screen so everything moves
+        game.getUserInput().pressAnyKey();
+    }
+
+    @Setup(Level.Iteration)
+    public void populate() {
+        populate(game, enemyCount, bulletCount);
+    }
+
+    /**
+     * Start a new wave with a fresh, repeatable scene. The enemies form a block
+     * with the default formation's proportions, rounded up to whole rows, and
+     * the bullets are scattered over the screen.
+     */
+    public static void populate(Game game, int enemyCount, int bulletCount) {
+        int columns = columnsFor(enemyCount);
+        game.setFormationSize((enemyCount + columns - 1) / columns, columns);
+        game.initGameObjects();
+
+        Random random = new Random(SEED);
+        BulletPool bulletPool = game.getEntities().getBulletPool();
+        for (int i = 0; i < bulletCount; i++) {
+            bulletPool.acquire(random.nextInt(Game.MAX_X), random.nextInt(Game.MAX_Y),
+                    ShipSystem.DEFAULT_BULLET_MOVE_SPEED, 1);
+        }
+    }
+
+    /**
+     * @return The number of columns for a formation of about this many enemies
+     */
+    public static int columnsFor(int enemyCount) {
+        double ratio = (double) EnemyFormation.DEFAULT_ENEMIES_PER_ROW / EnemyFormation.DEFAULT_ENEMIES_ROWS;
+        return Math.max(1, (int) Math.ceil(Math.sqrt(enemyCount * ratio)));
+    }
+}
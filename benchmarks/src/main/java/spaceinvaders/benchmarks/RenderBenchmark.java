@@ -0,0 +1,77 @@
+package spaceinvaders.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import spaceinvaders.Game;
+import spaceinvaders.GameView;
+import spaceinvaders.entities.EntityStore;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times drawing a frame into an offscreen image. Frames alternate between two
+ * captures of the scene a tick apart, so there's always something that
+ * changed since the last one. The scene is set up once, since drawing
+ * doesn't change it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RenderBenchmark {
+    @Param({"60", "1000", "10000"})
+    public int enemyCount;
+
+    @Param({"10", "100", "1000"})
+    public int bulletCount;
+
+    /**
+     * Whether to redraw only what changed since the last frame
+     */
+    @Param({"false", "true"})
+    public boolean dirtyRendering;
+
+    private GameView gameView;
+    /**
+     * The scene a tick apart, drawn in turn
+     */
+    private EntityStore[] frames;
+    private int frame = 0;
+
+    @Setup(Level.Trial)
+    public void createView() {
+        System.setProperty("java.awt.headless", "true");
+        Game game = new Game(true);
+        game.getUserInput().pressAnyKey();
+
+        BufferedImage image = new BufferedImage(Game.MAX_X, Game.MAX_Y, BufferedImage.TYPE_INT_RGB);
+        gameView = new GameView(game, game.getUserInput(), image);
+        gameView.setDirtyRendering(dirtyRendering);
+        frames = new EntityStore[]{new EntityStore(game.getSprites()), new EntityStore(game.getSprites())};
+
+        GameState.populate(game, enemyCount, bulletCount);
+        game.getEntities().copyPositionsTo(frames[0]);
+        game.moveGameObjects(Game.TICK_MS);
+        game.getEntities().copyPositionsTo(frames[1]);
+    }
+
+    @Benchmark
+    public GameView drawGameObjects() {
+        frame ^= 1;
+        gameView.drawGameObjects(frames[frame], 1.0);
+        return gameView;
+    }
+}
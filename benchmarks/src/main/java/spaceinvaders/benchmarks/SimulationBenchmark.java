@@ -0,0 +1,46 @@
+package spaceinvaders.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import spaceinvaders.Game;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times movement and collision checking per tick, averaged over the first
+ * ticks of a freshly populated scene.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@OperationsPerInvocation(SimulationBenchmark.TICKS)
+@Warmup(iterations = 20)
+@Measurement(iterations = 20)
+@Fork(1)
+public class SimulationBenchmark {
+    /**
+     * The number of ticks timed from each fresh scene
+     */
+    static final int TICKS = 100;
+
+    @Benchmark
+    public Game moveGameObjects(GameState state) {
+        for (int i = 0; i < TICKS; i++) {
+            state.game.moveGameObjects(Game.TICK_MS);
+        }
+        return state.game;
+    }
+
+    @Benchmark
+    public Game checkForCollisions(GameState state) {
+        for (int i = 0; i < TICKS; i++) {
+            state.game.checkForCollisions();
+        }
+        return state.game;
+    }
+}
@@ -0,0 +1,138 @@
+package spaceinvaders;
+
+import java.util.Arrays;
+
+/**
+ * A uniform grid over the playfield used as a collision broadphase. Objects
+ * are inserted by id into every cell their bounds touch, and a query returns
+ * each id found in the cells a box touches exactly once. Only those candidates
+ * need a proper collision test.
+ * <p>
+ * The grid is meant to be cleared and refilled every tick, none of which
+ * allocates once the cells have grown to fit.
+ */
+public class CollisionGrid {
+    public static final int DEFAULT_CELL_SIZE = 50;
+    private static final int INITIAL_CELL_CAPACITY = 4;
+
+    private int cellSize;
+    private int columns;
+    private int rows;
+    /**
+     * The top left of the area covered, objects outside it are clamped to the edge cells
+     */
+    private int originX = -Game.SCREEN_EDGE_OUTER_BUFFER;
+    private int originY = -Game.SCREEN_EDGE_OUTER_BUFFER;
+
+    private int[][] cells;
+    private int[] cellCounts;
+
+    /**
+     * The query each id was last returned by, so ids spanning several cells are only returned once
+     */
+    private int[] queryStamps = new int[64];
+    private int queryStamp = 0;
+    private int[] candidates = new int[64];
+
+    public CollisionGrid() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    public CollisionGrid(int cellSize) {
+        this.cellSize = cellSize;
+        columns = (Game.MAX_X + 2 * Game.SCREEN_EDGE_OUTER_BUFFER) / cellSize + 1;
+        rows = (Game.MAX_Y + 2 * Game.SCREEN_EDGE_OUTER_BUFFER) / cellSize + 1;
+        cells = new int[columns * rows][INITIAL_CELL_CAPACITY];
+        cellCounts = new int[columns * rows];
+    }
+
+    /**
+     * Empty every cell ready for the next tick
+     */
+    public void clear() {
+        Arrays.fill(cellCounts, 0);
+    }
+
+    /**
+     * Add an object to every cell its bounds touch
+     *
+     * @param id     The id to return from queries, must not be negative
+     * @param x      The left edge of the object
+     * @param y      The top edge of the object
+     * @param width  The width of the object
+     * @param height The height of the object
+     */
+    public void insert(int id, int x, int y, int width, int height) {
+        int left = column(x);
+        int right = column(x + width);
+        int top = row(y);
+        int bottom = row(y + height);
+
+        for (int row = top; row <= bottom; row++) {
+            for (int column = left; column <= right; column++) {
+                int cell = row * columns + column;
+                if (cellCounts[cell] == cells[cell].length) {
+                    cells[cell] = Arrays.copyOf(cells[cell], cells[cell].length * 2);
+                }
+                cells[cell][cellCounts[cell]++] = id;
+            }
+        }
+
+        if (id >= queryStamps.length) {
+            queryStamps = Arrays.copyOf(queryStamps, Math.max(id + 1, queryStamps.length * 2));
+        }
+    }
+
+    /**
+     * Find every object sharing a cell with a box. The ids found are read back
+     * with {@link #getCandidate(int)} until the next query.
+     *
+     * @param x      The left edge of the box
+     * @param y      The top edge of the box
+     * @param width  The width of the box
+     * @param height The height of the box
+     * @return The number of candidates found
+     */
+    public int query(int x, int y, int width, int height) {
+        int left = column(x);
+        int right = column(x + width);
+        int top = row(y);
+        int bottom = row(y + height);
+
+        queryStamp++;
+        int count = 0;
+        for (int row = top; row <= bottom; row++) {
+            for (int column = left; column <= right; column++) {
+                int cell = row * columns + column;
+                int[] ids = cells[cell];
+                for (int i = 0; i < cellCounts[cell]; i++) {
+                    int id = ids[i];
+                    if (queryStamps[id] != queryStamp) {
+                        queryStamps[id] = queryStamp;
+                        if (count == candidates.length) {
+                            candidates = Arrays.copyOf(candidates, candidates.length * 2);
+                        }
+                        candidates[count++] = id;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    public int getCandidate(int index) {
+        return candidates[index];
+    }
+
+    private int column(int x) {
+        return clamp((x - originX) / cellSize, columns);
+    }
+
+    private int row(int y) {
+        return clamp((y - originY) / cellSize, rows);
+    }
+
+    private static int clamp(int value, int size) {
+        return value < 0 ? 0 : (value >= size ? size - 1 : value);
+    }
+}
@@ -1,10 +1,29 @@
 package spaceinvaders;
 
-import spaceinvaders.gameObjects.GOEnemy;
+import spaceinvaders.entities.Archetype;
+import spaceinvaders.jfr.FormationAdvanceEvent;
+import spaceinvaders.levels.LevelDefinition;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
+ * A block of enemies that marches across the screen together, advancing
+ * and turning around whenever its edge reaches the side of the screen.
+ * <p>
+ * Enemies are stored relative to the formation's origin, and the whole
+ * formation shares one velocity. Marching, advancing and speeding up are
+ * each a single update to the origin or velocity, however many enemies
+ * there are. Absolute positions are only worked out when enemies are drawn
+ * or checked for collisions.
+ * <p>
+ * The formation also keeps the bounding box of its enemies' offsets, so
+ * deciding when to turn is a single check per tick. It counts the enemies
+ * left in each column and row, and the box only shrinks when an edge
+ * column or the bottom row empties, so a kill costs a few array updates
+ * rather than a pass over every enemy.
+ * <p>
+ * The layout, speeds and hit points come from a {@link LevelDefinition}.
+ *
  * Created by Andrew on 05/08/2016.
  */
 public class EnemyFormation {
@@ -14,48 +33,184 @@ public class EnemyFormation {
     public static final int DEFAULT_ENEMY_GAP_X = 50;
     public static final int DEFAULT_ENEMY_GAP_Y = 30;
     public static final int DEFAULT_ENEMY_TOP_EDGE_Y = 50;
+    public static final int DEFAULT_ENEMY_MOVE_SPEED = 75;
+    public static final double DEFAULT_ENEMY_MOVE_SPEED_INCREASE = 1.03;
+    public static final int DEFAULT_ENEMY_ADVANCE_Y = 10;
+    /**
+     * How close the formation gets to the left of the screen before turning
+     */
+    public static final int DEFAULT_LEFT_TURN_X = 10;
 
     private Game game;
-    private ArrayList<GOEnemy> enemies = new ArrayList<>();
-    private long directionChangeTime = 0;
+    private Archetype enemies;
+    private int level;
+    private LevelDefinition definition;
+    /**
+     * The direction the formation is moving in, -1 for left and 1 for right
+     */
+    private int direction = -1;
+    /**
+     * How much faster than the level's starting speed the formation is moving
+     */
+    private double speedMultiplier = 1;
+    /**
+     * How much the formation speeds up each time an enemy is killed
+     */
+    private double speedIncrease;
 
-    public EnemyFormation(Game game, int level){
-        this.game = game;
+    /**
+     * The offset of each column and row, and the number of enemies left in each
+     */
+    private double[] columnOffsets;
+    private int[] columnCounts;
+    private double[] rowOffsets;
+    private int[] rowCounts;
+    /**
+     * The outermost columns and the bottom row with enemies left in them
+     */
+    private int firstColumn;
+    private int lastColumn;
+    private int lastRow;
 
-        // create a block of enemies (5 rows, by 12 enemies, spaced evenly)
-        for (int row = 0; row < DEFAULT_ENEMIES_ROWS; row++) {
-            for (int x = 0; x < DEFAULT_ENEMIES_PER_ROW; x++) {
-                GOEnemy enemy = new GOEnemy(game, "sprites/enemy.gif",
-                        DEFAULT_ENEMY_LEFT_EDGE_X + (x * DEFAULT_ENEMY_GAP_X),
-                        DEFAULT_ENEMY_TOP_EDGE_Y + row * DEFAULT_ENEMY_GAP_Y,
-                        this);
-                game.addEnemy(enemy);
-                enemies.add(enemy);
-            }
-        }
+    public EnemyFormation(Game game, Archetype enemies, int level){
+        this(game, enemies, level, DEFAULT_ENEMIES_ROWS, DEFAULT_ENEMIES_PER_ROW);
+    }
+
+    /**
+     * Create a block of enemies, spaced evenly
+     *
+     * @param game        The game the formation is part of
+     * @param enemies     The archetype to add the enemies to
+     * @param level       The level being played
+     * @param rows        The number of rows of enemies
+     * @param enemiesPerRow The number of enemies in each row
+     */
+    public EnemyFormation(Game game, Archetype enemies, int level, int rows, int enemiesPerRow){
+        this(game, enemies, level, LevelDefinition.uniform(rows, enemiesPerRow));
     }
 
-    public void remove(GOEnemy enemy) {
-        enemies.remove(enemy);
+    /**
+     * Create the formation for a level, adding its enemies
+     *
+     * @param game       The game the formation is part of
+     * @param enemies    The archetype to add the enemies to
+     * @param level      The level being played
+     * @param definition The level's layout and speeds
+     */
+    public EnemyFormation(Game game, Archetype enemies, int level, LevelDefinition definition){
+        this.game = game;
+        this.enemies = enemies;
+        this.level = level;
+        this.definition = definition;
+        this.speedIncrease = definition.getSpeedIncrease();
+        definition.spawn(enemies);
+
+        columnOffsets = definition.getColumnOffsets();
+        columnCounts = definition.getColumnCounts();
+        rowOffsets = definition.getRowOffsets();
+        rowCounts = definition.getRowCounts();
+        firstColumn = 0;
+        lastColumn = columnCounts.length - 1;
+        lastRow = rowCounts.length - 1;
+        shrinkBounds();
     }
 
     public boolean isEmpty() {
         return enemies.isEmpty();
     }
 
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * @return The speed the formation is moving at (pixels/sec), negative when moving left
+     */
+    public double getVelocity() {
+        return direction * definition.getSpeed() * speedMultiplier;
+    }
+
+    public double getSpeedMultiplier() {
+        return speedMultiplier;
+    }
+
+    /**
+     * Override how much the formation speeds up each time an enemy is killed, e.g. when tuning the game
+     */
+    public void setSpeedIncrease(double speedIncrease) {
+        this.speedIncrease = speedIncrease;
+    }
+
     public void increaseMovementSpeed() {
-        for(GOEnemy enemy : enemies){
-            enemy.increaseMovementSpeed();
+        speedMultiplier *= speedIncrease;
+    }
+
+    /**
+     * Move the formation, first turning it around if it has reached the edge of the screen
+     *
+     * @param delta The time that has elapsed since last move (ms)
+     */
+    public void move(long delta) {
+        if (isEmpty()) {
+            return;
+        }
+
+        // if the formation reaches edge of screen, it advances and turns around
+        double originX = enemies.getOriginX();
+        if (((direction < 0) && (originX + columnOffsets[firstColumn] < DEFAULT_LEFT_TURN_X))
+                || ((direction > 0) && (originX + columnOffsets[lastColumn] > Game.MAX_X - Game.SCREEN_EDGE_INNER_BUFFER))) {
+            advanceAndChangeDirection();
         }
+
+        enemies.translate((delta * getVelocity()) / 1000, 0);
     }
 
     public void advanceAndChangeDirection(){
-        if(directionChangeTime != game.getLastLoopTime()){
-            directionChangeTime = game.getLastLoopTime();
+        direction = -direction;
+        enemies.translate(0, definition.getAdvanceY());
+
+        FormationAdvanceEvent event = new FormationAdvanceEvent();
+        if (event.isEnabled()) {
+            event.bottomY = (int) (enemies.getOriginY() + rowOffsets[lastRow]);
+            event.velocity = getVelocity();
+            event.enemies = enemies.getCount();
+            event.commit();
+        }
+
+        if (enemies.getOriginY() + rowOffsets[lastRow] > Game.MAX_Y - Game.SCREEN_EDGE_INNER_BUFFER) {
+            game.notifyDeath();
+        }
+    }
 
-            for(GOEnemy enemy : enemies){
-                enemy.advance();
-            }
+    /**
+     * Notification that an enemy has been killed, so the formation may have shrunk.
+     * Called before the enemy is removed.
+     *
+     * @param index The enemy killed
+     */
+    public void enemyKilled(int index) {
+        int column = Arrays.binarySearch(columnOffsets, enemies.getOffsetX(index));
+        int row = Arrays.binarySearch(rowOffsets, enemies.getOffsetY(index));
+        columnCounts[column]--;
+        rowCounts[row]--;
+        if (columnCounts[column] == 0 || rowCounts[row] == 0) {
+            shrinkBounds();
+        }
+    }
+
+    /**
+     * Move the bounds in past any empty columns or rows. Each column and row
+     * is only stepped past once, however many enemies are killed.
+     */
+    private void shrinkBounds() {
+        while (firstColumn < lastColumn && columnCounts[firstColumn] == 0) {
+            firstColumn++;
+        }
+        while (lastColumn > firstColumn && columnCounts[lastColumn] == 0) {
+            lastColumn--;
+        }
+        while (lastRow > 0 && rowCounts[lastRow] == 0) {
+            lastRow--;
         }
     }
 }
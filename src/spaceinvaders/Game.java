@@ -1,10 +1,25 @@
 package spaceinvaders;
 
-import spaceinvaders.gameObjects.GOBullet;
-import spaceinvaders.gameObjects.GOEnemy;
-import spaceinvaders.gameObjects.GOShip;
+import spaceinvaders.entities.Archetype;
+import spaceinvaders.entities.CollisionSystem;
+import spaceinvaders.entities.EntityStore;
+import spaceinvaders.entities.MovementSystem;
+import spaceinvaders.entities.ShipSystem;
+import spaceinvaders.input.InputRecorder;
+import spaceinvaders.jfr.EnemyDeathEvent;
+import spaceinvaders.jfr.FrameEvent;
+import spaceinvaders.jfr.PhaseEvent;
+import spaceinvaders.jfr.TickEvent;
+import spaceinvaders.levels.LevelDefinition;
+import spaceinvaders.levels.LevelLoader;
+import spaceinvaders.render.RenderThread;
+import spaceinvaders.sprites.SpriteStore;
+import spaceinvaders.stats.FrameTimings;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * @author Andrew Lem
@@ -14,17 +29,82 @@ public class Game {
     public static final int MAX_Y = 600;
     public static final int SCREEN_EDGE_INNER_BUFFER = 50;
     public static final int SCREEN_EDGE_OUTER_BUFFER = 100;
+    /**
+     * The fixed length of a simulation tick (ms)
+     */
+    public static final long TICK_MS = 10;
+    public static final long TICK_NANOS = TICK_MS * 1000000;
+    /**
+     * The most ticks a single frame will run to catch up before dropping the backlog
+     */
+    public static final int MAX_CATCH_UP_TICKS = 10;
+    public static final int MAX_FPS = 240;
+    public static final long FRAME_NANOS = 1000000000L / MAX_FPS;
+    /**
+     * Set this system property to true to draw on a separate render thread
+     */
+    public static final String RENDER_THREAD_PROPERTY = "spaceinvaders.renderThread";
+    /**
+     * Set this system property to a file name to record the session's input for replay
+     */
+    public static final String RECORD_PROPERTY = "spaceinvaders.record";
+    /**
+     * How often, in ticks, a recording notes down the game state to check replays against
+     */
+    public static final int CHECKPOINT_INTERVAL = 100;
+    public static final int SCORE_PER_ENEMY = 10;
+    /**
+     * How long quitting waits for the game loop to finish its tick and close the recording (ms)
+     */
+    private static final long SHUTDOWN_WAIT_MS = 1000;
 
-    private boolean gameRunning = true;
-    private long lastLoopTime = System.currentTimeMillis();
-    private ArrayList<GOEnemy> enemies = new ArrayList<>();
-    private ArrayList<GOEnemy> removeEnemies = new ArrayList<>();
-    private ArrayList<GOBullet> bullets = new ArrayList<>();
-    private ArrayList<GOBullet> removeBullets = new ArrayList<>();
+    /**
+     * Cleared to end the game loop, possibly from another thread
+     */
+    private volatile boolean gameRunning = true;
+    /**
+     * The thread running {@link #gameLoop()}, or null if the game is being ticked directly
+     */
+    private volatile Thread loopThread;
+    /**
+     * The simulated time in ms, advanced by each tick rather than read from the wall clock
+     */
+    private long gameTime = 0;
+    private long tickCount = 0;
+    private int lastCatchUpTicks = 0;
+    private long droppedTicks = 0;
+    private long score = 0;
+    private EntityStore entities;
+    private MovementSystem movementSystem = new MovementSystem();
+    private CollisionSystem collisionSystem = new CollisionSystem();
+    private ShipSystem ship;
     private EnemyFormation enemyFormation;
-    private GOShip ship;
+    private SpriteStore sprites;
+    private LevelLoader levels;
+    /**
+     * The level being played, starting at 1
+     */
+    private int level = 1;
+    /**
+     * True once the current wave has been cleared, so the next key press moves on to the next level
+     */
+    private boolean waveCleared = false;
+    /**
+     * A formation to play on every level in place of the level files, or null to use them
+     */
+    private LevelDefinition customLevel;
+    /**
+     * How much each formation speeds up per kill in place of its level's setting, or 0 to use the level's
+     */
+    private double enemySpeedIncrease = 0;
     private UserInput userInput;
-    private GameView gameView;
+    private GameRenderer gameView;
+    /**
+     * The thread drawing the game, or null if the game thread draws it itself
+     */
+    private RenderThread renderThread;
+    private InputRecorder recorder;
+    private FrameTimings timings = new FrameTimings();
     private boolean mouseControls = true;
     private boolean keyboardControls = false;
 
@@ -32,8 +112,43 @@ public class Game {
      * Construct our game and set it running.
      */
     public Game() {
+        this(false);
+    }
+
+    /**
+     * Construct our game, optionally without a window.
+     *
+     * @param headless True if the game should run with no display, input then has to be
+     *                 supplied programmatically through {@link #getUserInput()}
+     */
+    public Game(boolean headless) {
+        this(headless, new SpriteStore(), new LevelLoader(LevelLoader.MANIFEST));
+    }
+
+    /**
+     * Construct our game with the sprites and levels it should use. Both can
+     * be shared with other games, e.g. when running many at once.
+     *
+     * @param headless True if the game should run with no display
+     * @param sprites  The store to take the sprites from
+     * @param levels   The loader to take the levels from
+     */
+    public Game(boolean headless, SpriteStore sprites, LevelLoader levels) {
+        this.sprites = sprites;
+        this.levels = levels;
         userInput = new UserInput(this);
-        gameView = new GameView(this, userInput);
+        if (headless) {
+            gameView = new HeadlessView();
+        } else {
+            gameView = new GameView(this, userInput);
+        }
+
+        // bring the window up first, so any sprites still being preloaded can finish meanwhile
+        entities = new EntityStore(sprites);
+        ship = new ShipSystem(entities);
+        // initialise the gameObjects in our game so there's something
+        // to see at startup
+        initGameObjects();
     }
 
     /**
@@ -44,7 +159,29 @@ public class Game {
      * @param argv The arguments that are passed into our game
      */
     public static void main(String argv[]) {
-        Game g = new Game();
+        long start = System.nanoTime();
+        // decode every sprite in the background while the window is created
+        SpriteStore sprites = new SpriteStore();
+        sprites.preload(SpriteStore.MANIFEST);
+        Game g = new Game(false, sprites, new LevelLoader(LevelLoader.MANIFEST));
+        if (Boolean.getBoolean(SpriteStore.LOAD_REPORT_PROPERTY)) {
+            System.out.println("started in " + (System.nanoTime() - start) / 1000000 + " ms");
+            System.out.println(sprites.getLoadReport());
+        }
+        if (Boolean.getBoolean(RENDER_THREAD_PROPERTY)) {
+            g.startRenderThread();
+        }
+        String recording = System.getProperty(RECORD_PROPERTY);
+        if (recording != null) {
+            try {
+                g.startRecording(Paths.get(recording));
+            } catch (IOException e) {
+                System.err.println("Can't record input to " + recording + ": " + e.getMessage());
+            }
+        }
+        if (Boolean.getBoolean(SpriteStore.VOLATILE_PROPERTY)) {
+            System.out.println(sprites.getAccelerationReport());
+        }
 
         // Start the main game loop, note: this method will not
         // return until the game has finished running. Hence we are
@@ -53,18 +190,33 @@ public class Game {
     }
 
     public void initGameObjects() {
-        enemies.clear();
-        bullets.clear();
+        entities.clear();
         // create the player ship and place it roughly in the center of the screen
-        ship = new GOShip(this, "sprites/ship.gif", MAX_X / 2, MAX_Y - SCREEN_EDGE_INNER_BUFFER);
-        enemyFormation = new EnemyFormation(this, 1);
+        ship.spawn(MAX_X / 2, MAX_Y - SCREEN_EDGE_INNER_BUFFER);
+        LevelDefinition definition = customLevel != null ? customLevel : levels.get(level);
+        enemyFormation = new EnemyFormation(this, entities.getEnemies(), level, definition);
+        if (enemySpeedIncrease > 0) {
+            enemyFormation.setSpeedIncrease(enemySpeedIncrease);
+        }
+        if (customLevel == null) {
+            // read and build the next wave while this one is played
+            levels.prepare(level + 1);
+        }
     }
 
     /**
-     * Start a fresh game, this should clear out any old data and
-     * create a new set.
+     * Start the next wave if the last one was cleared, otherwise start a
+     * fresh game. Either way this clears out any old data and creates a
+     * new set.
      */
     public void startGame() {
+        if (waveCleared) {
+            level++;
+        } else {
+            level = 1;
+            score = 0;
+        }
+        waveCleared = false;
         // clear out any existing gameObjects and initialise a new set
         initGameObjects();
 
@@ -73,49 +225,207 @@ public class Game {
     }
 
     public void gameLoop() {
+        loopThread = Thread.currentThread();
+        try {
+            runLoop();
+        } finally {
+            // only this thread ticks, so this is the one place the final state can be read safely
+            stopRecording();
+        }
+    }
+
+    private void runLoop() {
+        long previousTime = System.nanoTime();
+        long accumulator = 0;
+
         // keep looping round til the game ends
         while (gameRunning) {
-            moveGameObjects();
-            gameView.drawGameObjects(ship, enemies, bullets);
-            checkForCollisions();
-            processUserInput();
-            sleepForFPS();
+            // bank the real time that has passed, then spend it in fixed size ticks so every
+            // simulation step is the same length no matter how long the frame took
+            FrameEvent frameEvent = new FrameEvent();
+            frameEvent.begin();
+            long frameStart = System.nanoTime();
+            accumulator += frameStart - previousTime;
+            timings.record(FrameTimings.FRAME, frameStart - previousTime);
+            timings.publishIfDue(frameStart);
+            previousTime = frameStart;
+
+            int ticks = 0;
+            while (accumulator >= TICK_NANOS && ticks < MAX_CATCH_UP_TICKS) {
+                tick(TICK_MS);
+                accumulator -= TICK_NANOS;
+                ticks++;
+            }
+            // if we're still behind we'd never catch up, drop the backlog rather than spiral
+            if (accumulator >= TICK_NANOS) {
+                droppedTicks += accumulator / TICK_NANOS;
+                accumulator %= TICK_NANOS;
+            }
+            lastCatchUpTicks = ticks;
+
+            if (renderThread != null) {
+                // hand the render thread the latest state, then wait for the next tick to be due
+                if (ticks > 0) {
+                    renderThread.publish(entities, gameView.getMessage(), userInput.isWaitingForKeyPress(), score, tickCount);
+                }
+                sleepUntil(frameStart + TICK_NANOS - accumulator);
+            } else {
+                // draw part way between the last two ticks by however much time is left over
+                PhaseEvent draw = beginPhase(PhaseEvent.DRAW);
+                gameView.drawGameObjects(entities, (double) accumulator / TICK_NANOS);
+                draw.commit();
+                sleepUntil(frameStart + FRAME_NANOS);
+            }
+
+            if (frameEvent.shouldCommit()) {
+                frameEvent.tick = tickCount;
+                frameEvent.ticksRun = ticks;
+                frameEvent.droppedTicks = droppedTicks;
+                frameEvent.commit();
+            }
+        }
+    }
+
+    /**
+     * Move drawing off to its own thread, so the game loop only runs the
+     * simulation and never waits on the display. Only possible with a window.
+     */
+    public void startRenderThread() {
+        if (renderThread == null && gameView instanceof GameView) {
+            renderThread = new RenderThread((GameView) gameView, sprites);
+            renderThread.start();
+        }
+    }
+
+    /**
+     * Record every input event and the tick it lands on, so the session can
+     * be replayed exactly by {@link spaceinvaders.headless.ReplayRunner}.
+     * The recording is closed when the game stops or the JVM exits.
+     *
+     * @param path The file to write the recording to
+     */
+    public void startRecording(Path path) throws IOException {
+        recorder = new InputRecorder(path);
+        userInput.setRecorder(recorder);
+        // escape quits straight from the AWT thread, so close the file on the way out
+        Runtime.getRuntime().addShutdownHook(new Thread(this::finishRecording));
+    }
+
+    /**
+     * Run on exit. The game may be part way through a tick, so rather than
+     * reading its state from here, ask the game loop to stop and wait for it
+     * to write the end of the recording once the tick is done.
+     */
+    private void finishRecording() {
+        Thread loop = loopThread;
+        if (loop == null) {
+            // ticked directly, e.g. headless, and whoever was ticking it has finished
+            stopRecording();
+            return;
+        }
+        gameRunning = false;
+        try {
+            loop.join(SHUTDOWN_WAIT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public void stopRecording() {
+        if (recorder != null) {
+            try {
+                recorder.close(tickCount, getStateDigest());
+            } catch (IOException e) {
+                System.err.println("Failed to close input recording: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Run a single simulation step without any drawing or waiting. Headless
+     * runs call this directly to go as fast as the CPU allows.
+     *
+     * @param delta The time in ms to advance the game by
+     */
+    public void tick(long delta) {
+        gameTime += delta;
+        tickCount++;
 
+        TickEvent tickEvent = new TickEvent();
+        tickEvent.begin();
+
+        long start = System.nanoTime();
+        PhaseEvent phase = beginPhase(PhaseEvent.MOVE);
+        moveGameObjects(delta);
+        phase.commit();
+        long moved = System.nanoTime();
+        phase = beginPhase(PhaseEvent.COLLISIONS);
+        checkForCollisions();
+        phase.commit();
+        long collided = System.nanoTime();
+        phase = beginPhase(PhaseEvent.INPUT);
+        processUserInput();
+        phase.commit();
+        timings.record(FrameTimings.MOVE, moved - start);
+        timings.record(FrameTimings.COLLISIONS, collided - moved);
+        timings.record(FrameTimings.INPUT, System.nanoTime() - collided);
+
+        if (tickEvent.shouldCommit()) {
+            tickEvent.tick = tickCount;
+            tickEvent.delta = delta;
+            tickEvent.enemies = entities.getEnemies().getCount();
+            tickEvent.bullets = entities.getBullets().getCount();
+            tickEvent.pairsTested = collisionSystem.getPairsTested();
+            tickEvent.commit();
+        }
+
+        if (recorder != null && tickCount % CHECKPOINT_INTERVAL == 0) {
+            recorder.recordCheckpoint(tickCount, getStateDigest());
         }
     }
 
-    public void moveGameObjects(){
-        // work out how long its been since the last update, this will be used to calculate how far the gameObjects
-        // should move this loop
-        long delta = System.currentTimeMillis() - lastLoopTime;
-        lastLoopTime = System.currentTimeMillis();
+    /**
+     * Start timing a phase of the game loop for the flight recorder
+     */
+    private PhaseEvent beginPhase(String name) {
+        PhaseEvent phase = new PhaseEvent(name, tickCount);
+        phase.begin();
+        return phase;
+    }
+
+    public void moveGameObjects(long delta){
+        // remember where everything was so frames can be drawn between this tick and the last
+        movementSystem.savePositions(entities.getShip());
+        // enemies only ever move with their formation
+        movementSystem.saveOrigin(entities.getEnemies());
+        movementSystem.savePositions(entities.getBullets());
 
         if (!userInput.isWaitingForKeyPress()) {
             ship.move(delta);
-            for (GOEnemy enemy : enemies) {
-                enemy.move(delta);
-            }
-            for (GOBullet bullet : bullets) {
-                bullet.move(delta);
-                if (bullet.isOffScreen()) {
-                    removeBullets.add(bullet);
-                }
-            }
+            enemyFormation.move(delta);
+            movementSystem.move(entities.getBullets(), delta);
+            movementSystem.killOffScreen(entities.getBullets());
         }
 
     }
 
-    private void sleepForFPS() {
-        // finally pause for a bit. Note: this should run us at about
-        // 100 fps but on windows this might vary each loop due to
-        // a bad implementation of timer
-        try {
-            Thread.sleep(10);
-        } catch (Exception e) {
+    private void sleepUntil(long wakeTime) {
+        // finally pause for whatever is left of this frame so we don't
+        // loop faster than we need to
+        PhaseEvent sleep = beginPhase(PhaseEvent.SLEEP);
+        long start = System.nanoTime();
+        long remaining = wakeTime - start;
+        if (remaining > 0) {
+            LockSupport.parkNanos(remaining);
         }
+        sleep.commit();
+        timings.record(FrameTimings.SLEEP, System.nanoTime() - start);
     }
 
     private void processUserInput() {
+        // catch up on everything the player did since last tick
+        userInput.pollEvents();
+
         // resolve the movement of the ship. First assume the ship
         // isn't moving. If either cursor key is pressed then
         // update the movement appropriately
@@ -131,7 +441,7 @@ public class Game {
 
             // if we're pressing fire, attempt to fire
             if (userInput.isMouseClick()) {
-                ship.tryToFire();
+                ship.tryToFire(gameTime);
             }
         }
 
@@ -144,71 +454,183 @@ public class Game {
 
             // if we're pressing fire, attempt to fire
             if (userInput.isFirePressed()) {
-                ship.tryToFire();
+                ship.tryToFire(gameTime);
             }
         }
     }
 
-    private void checkForCollisions() {
-        for (GOEnemy enemy : enemies){
-            for (GOBullet bullet : bullets){
-                if (bullet.collidesWith(enemy)) {
-                    bullet.bulletHitsEnemy(enemy);
-                }
-                if (enemy.isDead()){
-                    if (!removeEnemies.contains(enemy)) {
-                        removeEnemies.add(enemy);
-                    }
-                }
-                if (bullet.isUsed()){
-                    if (!removeBullets.contains(bullet)) {
-                        removeBullets.add(bullet);
-                    }
-                }
-            }
-
-            if(ship.collidesWith(enemy)) {
-                notifyDeath();
-            }
+    public void checkForCollisions() {
+        collisionSystem.prepare(entities.getEnemies());
+        collisionSystem.bulletsHitTargets(entities.getBullets(), entities.getEnemies());
+        if (collisionSystem.collidesWithAny(entities.getShip(), 0, entities.getEnemies())) {
+            notifyDeath();
         }
 
-        // remove any gameObject that has been marked for clear up
-        enemies.removeAll(removeEnemies);
-        for (GOEnemy enemy : removeEnemies){
-            enemyFormation.remove(enemy);
+        // remove any entity that has been marked for clear up
+        entities.getBulletPool().releaseDead();
+        Archetype enemies = entities.getEnemies();
+        int killed = collisionSystem.getKilledCount();
+        if (killed == 0) {
+            return;
+        }
+        for (int i = 0; i < killed; i++) {
+            int index = collisionSystem.getKilled(i);
+            enemyFormation.enemyKilled(index);
+            recordEnemyDeath(enemies, index);
+        }
+        collisionSystem.removeKilled(enemies);
+        for (int i = 0; i < killed; i++) {
             notifyEnemyKilled();
         }
-        removeEnemies.clear();
-        bullets.removeAll(removeBullets);
-        removeBullets.clear();
+    }
+
+    private void recordEnemyDeath(Archetype enemies, int index) {
+        EnemyDeathEvent event = new EnemyDeathEvent();
+        if (event.isEnabled()) {
+            event.tick = tickCount;
+            event.x = enemies.getX(index);
+            event.y = enemies.getY(index);
+            event.commit();
+        }
     }
 
     public void notifyDeath() {
+        waveCleared = false;
         gameView.setMessage("Oh no! They got you, try again?");
         userInput.waitForKeyPress();
     }
 
     public void notifyWin() {
-        gameView.setMessage("Well done! You Win!");
+        waveCleared = true;
+        gameView.setMessage("Well done! Wave " + level + " cleared, press any key for the next");
         userInput.waitForKeyPress();
     }
 
     public void notifyEnemyKilled() {
+        score += SCORE_PER_ENEMY;
         if (enemyFormation.isEmpty()) {
             notifyWin();
         }
         enemyFormation.increaseMovementSpeed();
     }
 
-    public long getLastLoopTime() {
-        return lastLoopTime;
+    /**
+     * Play a block of enemies of the given size on every level from the next
+     * new wave on, in place of the level files
+     *
+     * @param rows    The number of rows of enemies
+     * @param columns The number of enemies in each row
+     */
+    public void setFormationSize(int rows, int columns) {
+        customLevel = LevelDefinition.uniform(rows, columns);
+    }
+
+    /**
+     * Override how much enemies speed up each time one is killed, from the next new wave on
+     *
+     * @param enemySpeedIncrease The speed multiplier per kill, or 0 to use each level's setting
+     */
+    public void setEnemySpeedIncrease(double enemySpeedIncrease) {
+        this.enemySpeedIncrease = enemySpeedIncrease;
+    }
+
+    /**
+     * @param firingInterval The shortest time allowed between the player's shots (ms)
+     */
+    public void setFiringInterval(long firingInterval) {
+        ship.setFiringInterval(firingInterval);
+    }
+
+    public void stop() {
+        gameRunning = false;
+        stopRecording();
+        if (renderThread != null) {
+            renderThread.shutdown();
+        }
+    }
+
+    /**
+     * A hash of everything that decides how the game plays out from here.
+     * Two runs with the same digest on the same tick are in the same state.
+     */
+    public long getStateDigest() {
+        long hash = tickCount;
+        hash = hash * 31 + gameTime;
+        hash = hash * 31 + level;
+        hash = hash * 31 + (waveCleared ? 1 : 0);
+        hash = hash * 31 + (userInput.isWaitingForKeyPress() ? 1 : 0);
+        hash = hash * 31 + Double.doubleToLongBits(enemyFormation.getVelocity());
+        return entities.digest(hash);
+    }
+
+    public boolean isRunning() {
+        return gameRunning;
+    }
+
+    /**
+     * @return The number of ticks the last frame had to run to catch up with real time
+     */
+    public int getLastCatchUpTicks() {
+        return lastCatchUpTicks;
+    }
+
+    /**
+     * @return The number of ticks skipped because frames fell too far behind
+     */
+    public long getDroppedTicks() {
+        return droppedTicks;
+    }
+
+    /**
+     * @return The level being played, starting at 1
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * @return True if the game is waiting to start the next wave, rather than a new game
+     */
+    public boolean isWaveCleared() {
+        return waveCleared;
+    }
+
+    public long getScore() {
+        return score;
+    }
+
+    public long getGameTime() {
+        return gameTime;
+    }
+
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * @return How long each phase of the game loop has been taking
+     */
+    public FrameTimings getFrameTimings() {
+        return timings;
+    }
+
+    public UserInput getUserInput() {
+        return userInput;
+    }
+
+    public GameRenderer getGameView() {
+        return gameView;
+    }
+
+    public SpriteStore getSprites() {
+        return sprites;
     }
 
-    public void addBullet(GOBullet bullet){
-        bullets.add(bullet);
+    public EntityStore getEntities() {
+        return entities;
     }
 
-    public void addEnemy(GOEnemy enemy){
-        enemies.add(enemy);
+    public EnemyFormation getEnemyFormation() {
+        return enemyFormation;
     }
 }
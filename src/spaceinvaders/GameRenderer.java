@@ -0,0 +1,22 @@
+package spaceinvaders;
+
+import spaceinvaders.entities.EntityStore;
+
+/**
+ * Anything the game can hand its objects to at the end of a loop. The
+ * windowed {@link GameView} draws them to the screen, while the
+ * {@link HeadlessView} lets the simulation run with no display at all.
+ */
+public interface GameRenderer {
+    /**
+     * Draw the current state of the game
+     *
+     * @param entities Every entity in the game
+     * @param alpha    How far between the previous and current tick to draw, from 0 to 1
+     */
+    void drawGameObjects(EntityStore entities, double alpha);
+
+    String getMessage();
+
+    void setMessage(String message);
+}
@@ -1,33 +1,108 @@
 package spaceinvaders;
 
-import spaceinvaders.gameObjects.GOBullet;
-import spaceinvaders.gameObjects.GOEnemy;
-import spaceinvaders.gameObjects.GOShip;
+import spaceinvaders.entities.EntityStore;
+import spaceinvaders.entities.RenderSystem;
+import spaceinvaders.render.DirtyRegion;
+import spaceinvaders.render.DrawnPositions;
+import spaceinvaders.render.FrameSnapshot;
+import spaceinvaders.render.TextCache;
+import spaceinvaders.sprites.Sprite;
+import spaceinvaders.sprites.SpriteAtlas;
+import spaceinvaders.stats.FrameTimings;
+import spaceinvaders.stats.LatencyHistogram;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.awt.image.BufferStrategy;
-import java.util.ArrayList;
-
+import java.awt.image.BufferedImage;
 /**
  * Created by Andrew on 06/08/2016.
  */
-public class GameView extends Canvas {
+public class GameView extends Canvas implements GameRenderer {
     public static final String USER_INPUT_PROMPT = "Press any key to start, Press ESC to quit";
+    public static final String SCORE_LABEL = "Score ";
+    /**
+     * Redraw the whole screen rather than just what changed once this much of it has changed
+     */
+    public static final double FULL_REDRAW_FRACTION = 0.5;
+    private static final int STATS_OVERLAY_WIDTH = 400;
+    private static final int STATS_OVERLAY_HEIGHT = 150;
+    private static final int HUD_X = Game.MAX_X - 150;
+    private static final int HUD_Y = 20;
+    private static final int HUD_WIDTH = 150;
+    private static final int HUD_HEIGHT = 30;
+    private static final int SHIP = 0;
+    private static final int ENEMIES = 1;
+    private static final int BULLETS = 2;
 
     /**
      * The strategy that allows us to use accelerate page flipping
      */
     private BufferStrategy strategy;
+    /**
+     * The image to draw into instead of the screen, if we have no window
+     */
+    private BufferedImage offscreen;
     private Game game;
     private UserInput userInput;
+    private RenderSystem renderSystem = new RenderSystem();
+    /**
+     * How long drawing takes, kept here rather than with the game loop's
+     * timings since it may be a different thread doing the drawing
+     */
+    private LatencyHistogram drawTimes = new LatencyHistogram();
+    private long drawTimesPublished = System.nanoTime();
+    /**
+     * Reused to build the overlay text without allocating each frame
+     */
+    private StringBuilder overlayLine = new StringBuilder();
+    private char[] overlayChars = new char[128];
+
+    /**
+     * True if what we drew last frame is still there when we come to draw the
+     * next one, so only the parts that changed need redrawing
+     */
+    private boolean dirtyRendering = true;
+    /**
+     * Set when the next frame has to be drawn in full, e.g. when the text on screen changes
+     */
+    private boolean fullRedrawNeeded = true;
+    private DirtyRegion dirtyRegion = new DirtyRegion(Game.MAX_X, Game.MAX_Y);
+    private DrawnPositions[] drawn = {new DrawnPositions(), new DrawnPositions(), new DrawnPositions()};
+    private DrawnPositions[] drawnLastFrame = {new DrawnPositions(), new DrawnPositions(), new DrawnPositions()};
+    private Sprite[] sprites = new Sprite[3];
+    private String lastMessage;
+    private boolean lastWaitingForKeyPress;
+    private boolean lastStatsOverlayVisible;
+    private long lastAtlasRestoreCount;
+    private long lastScore;
+    /**
+     * Pre-rendered text, created with the font of the first graphics context we draw to
+     */
+    private TextCache textCache;
+    private long fullRedraws = 0;
+    private long partialRedraws = 0;
 
     /**
      * The message to display while waiting for a key press
      */
-    private String message = "";
+    private volatile String message = "";
+
+    /**
+     * Create a view that draws into an image rather than opening a window,
+     * e.g. for benchmarking the render pass
+     *
+     * @param game      The game being drawn
+     * @param userInput The input used to tell if we're waiting for a key press
+     * @param offscreen The image to draw into
+     */
+    public GameView(Game game, UserInput userInput, BufferedImage offscreen){
+        this.game = game;
+        this.userInput = userInput;
+        this.offscreen = offscreen;
+    }
 
     public GameView(Game game, UserInput userInput){
         this.game = game;
@@ -75,44 +150,235 @@ public class GameView extends Canvas {
         // to manage our accelerated graphics
         createBufferStrategy(2);
         strategy = getBufferStrategy();
+        // a flip that doesn't keep the back buffer's contents leaves us nothing to draw on top of
+        BufferCapabilities capabilities = strategy.getCapabilities();
+        dirtyRendering = !capabilities.isPageFlipping()
+                || capabilities.getFlipContents() == BufferCapabilities.FlipContents.COPIED;
+    }
+
+
 
-        // initialise the gameObjects in our game so there's something
-        // to see at startup
-        game.initGameObjects();
+    public void drawGameObjects(EntityStore entities, double alpha) {
+        drawFrame(entities, alpha, message, userInput.isWaitingForKeyPress(), game.getScore());
     }
 
+    /**
+     * Draw a snapshot of the game captured on another thread
+     *
+     * @param snapshot The state of the game to draw
+     * @param alpha    How far between the previous and current tick to draw, from 0 to 1
+     */
+    public void drawSnapshot(FrameSnapshot snapshot, double alpha) {
+        drawFrame(snapshot.getEntities(), alpha, snapshot.getMessage(), snapshot.isWaitingForKeyPress(),
+                snapshot.getScore());
+    }
 
+    private void drawFrame(EntityStore entities, double alpha, String message, boolean waitingForKeyPress, long score) {
+        long start = System.nanoTime();
+        // make sure the sprite atlas survived anything that happened to the display since last frame
+        SpriteAtlas atlas = game.getSprites().getAtlas();
+        atlas.validate();
 
-    public void drawGameObjects(GOShip ship, ArrayList<GOEnemy> enemies, ArrayList<GOBullet> bullets) {
+        sprites[SHIP] = entities.getShip().getSprite();
+        sprites[ENEMIES] = entities.getEnemies().getSprite();
+        sprites[BULLETS] = entities.getBullets().getSprite();
+        renderSystem.layout(entities.getShip(), alpha, drawn[SHIP]);
+        renderSystem.layout(entities.getEnemies(), alpha, drawn[ENEMIES]);
+        renderSystem.layout(entities.getBullets(), alpha, drawn[BULLETS]);
 
-        // Get hold of a graphics context for the accelerated
-        // surface and blank it out
-        Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
-        g.setColor(Color.black);
-        g.fillRect(0, 0, Game.MAX_X, Game.MAX_Y);
+        boolean statsOverlayVisible = userInput.isStatsOverlayVisible();
+        findDirtyRegion(atlas, message, waitingForKeyPress, statsOverlayVisible, score);
+
+        // the standard buffer strategy loop, except that anything going missing
+        // means the whole frame has to be drawn, not just what changed
+        boolean bufferLost;
+        do {
+            boolean redraw;
+            do {
+                // Get hold of a graphics context for the accelerated surface
+                Graphics2D g = offscreen != null ? offscreen.createGraphics() : (Graphics2D) strategy.getDrawGraphics();
+                if (textCache == null) {
+                    textCache = new TextCache(g.getFont(), Color.white, offscreen != null ? null : getGraphicsConfiguration());
+                }
+                if (dirtyRegion.isFull()) {
+                    drawRegion(g, 0, 0, Game.MAX_X, Game.MAX_Y, message, waitingForKeyPress, score);
+                    fullRedraws++;
+                } else if (!dirtyRegion.isEmpty()) {
+                    for (int i = 0; i < dirtyRegion.getCount(); i++) {
+                        g.setClip(dirtyRegion.getX(i), dirtyRegion.getY(i), dirtyRegion.getWidth(i), dirtyRegion.getHeight(i));
+                        drawRegion(g, dirtyRegion.getX(i), dirtyRegion.getY(i), dirtyRegion.getWidth(i), dirtyRegion.getHeight(i),
+                                message, waitingForKeyPress, score);
+                    }
+                    g.setClip(null);
+                    partialRedraws++;
+                }
 
-        ship.draw(g);
-        for (GOEnemy enemy : enemies){
-            enemy.draw(g);
+                if (statsOverlayVisible) {
+                    drawStatsOverlay(g, entities);
+                }
+                g.dispose();
+
+                // if the atlas was lost while we drew from it the sprites may have come out
+                // wrong, and if the back buffer was restored it no longer holds the last
+                // frame for the changes to be drawn over, so draw the whole frame again
+                redraw = false;
+                if (atlas.contentsLost()) {
+                    atlas.validate();
+                    redraw = true;
+                }
+                if (strategy != null && strategy.contentsRestored()) {
+                    redraw = true;
+                }
+                if (redraw) {
+                    dirtyRegion.markFull();
+                }
+            } while (redraw);
+
+            // finally, we've completed drawing so flip the buffer over
+            bufferLost = false;
+            if (strategy != null) {
+                strategy.show();
+                bufferLost = strategy.contentsLost();
+                if (bufferLost) {
+                    dirtyRegion.markFull();
+                }
+            }
+        } while (bufferLost);
+
+        DrawnPositions[] swap = drawnLastFrame;
+        drawnLastFrame = drawn;
+        drawn = swap;
+
+        long end = System.nanoTime();
+        drawTimes.record(end - start);
+        if (end - drawTimesPublished >= FrameTimings.PUBLISH_INTERVAL_NANOS) {
+            drawTimes.publish();
+            drawTimesPublished = end;
         }
-        for (GOBullet bullet : bullets){
-            bullet.draw(g);
+    }
+
+    /**
+     * Work out what has to be redrawn since the last frame
+     */
+    private void findDirtyRegion(SpriteAtlas atlas, String message, boolean waitingForKeyPress,
+                                 boolean statsOverlayVisible, long score) {
+        dirtyRegion.clear();
+        if (!message.equals(lastMessage)) {
+            // the old message won't be shown again until it's set again
+            if (textCache != null && lastMessage != null) {
+                textCache.remove(lastMessage);
+            }
+            fullRedrawNeeded = true;
+        }
+        if (!dirtyRendering || fullRedrawNeeded || atlas.getRestoreCount() != lastAtlasRestoreCount
+                || waitingForKeyPress != lastWaitingForKeyPress || statsOverlayVisible != lastStatsOverlayVisible) {
+            dirtyRegion.markFull();
+            fullRedrawNeeded = false;
+            lastAtlasRestoreCount = atlas.getRestoreCount();
+            lastWaitingForKeyPress = waitingForKeyPress;
+            lastMessage = message;
+            lastStatsOverlayVisible = statsOverlayVisible;
+            lastScore = score;
+            return;
+        }
+
+        for (int i = 0; i < drawn.length; i++) {
+            drawn[i].markChanged(drawnLastFrame[i], sprites[i].getWidth(), sprites[i].getHeight(), dirtyRegion);
+        }
+        if (score != lastScore) {
+            dirtyRegion.add(HUD_X, 0, HUD_WIDTH, HUD_HEIGHT);
+            lastScore = score;
+        }
+        if (statsOverlayVisible) {
+            // the figures change under the overlay every frame
+            dirtyRegion.add(0, 0, STATS_OVERLAY_WIDTH, STATS_OVERLAY_HEIGHT);
+        }
+        if (dirtyRegion.getArea() > Game.MAX_X * Game.MAX_Y * FULL_REDRAW_FRACTION) {
+            dirtyRegion.markFull();
+        }
+    }
+
+    /**
+     * Clear a rectangle of the screen and draw everything that overlaps it
+     */
+    private void drawRegion(Graphics2D g, int x, int y, int width, int height, String message,
+                            boolean waitingForKeyPress, long score) {
+        g.setColor(Color.black);
+        g.fillRect(x, y, width, height);
+
+        for (int i = 0; i < drawn.length; i++) {
+            renderSystem.draw(g, sprites[i], drawn[i], x, y, width, height);
         }
 
         // if we're waiting for an "any key" press then draw the current message
-        if (userInput.isWaitingForKeyPress()) {
-            g.setColor(Color.white);
-            g.drawString(message,
-                    (Game.MAX_X - g.getFontMetrics().stringWidth(message)) / 2,
-                    Game.MAX_Y / 2 - Game.SCREEN_EDGE_INNER_BUFFER);
-            g.drawString(USER_INPUT_PROMPT,
-                    (Game.MAX_X - g.getFontMetrics().stringWidth("Press any key to start, Press ESC to quit")) / 2,
-                    Game.MAX_Y / 2);
+        if (waitingForKeyPress) {
+            textCache.drawCentred(g, message, Game.MAX_X / 2, Game.MAX_Y / 2 - Game.SCREEN_EDGE_INNER_BUFFER);
+            textCache.drawCentred(g, USER_INPUT_PROMPT, Game.MAX_X / 2, Game.MAX_Y / 2);
+        }
+
+        textCache.draw(g, SCORE_LABEL, HUD_X, HUD_Y);
+        textCache.drawNumber(g, score, HUD_X + textCache.getWidth(SCORE_LABEL), HUD_Y);
+    }
+
+    /**
+     * Draw the latest frame timings and entity counts in the top left corner
+     */
+    private void drawStatsOverlay(Graphics2D g, EntityStore entities) {
+        FrameTimings timings = game.getFrameTimings();
+        int lineHeight = textCache.getHeight();
+        int y = lineHeight;
+        g.setColor(Color.green);
+
+        for (int phase = 0; phase < FrameTimings.PHASE_NAMES.length; phase++) {
+            appendTimings(FrameTimings.PHASE_NAMES[phase], timings.get(phase));
+            drawOverlayLine(g, y += lineHeight);
+            if (phase == FrameTimings.FRAME) {
+                appendTimings("draw", drawTimes);
+                drawOverlayLine(g, y += lineHeight);
+            }
         }
 
-        // finally, we've completed drawing so clear up the graphics and flip the buffer over
-        g.dispose();
-        strategy.show();
+        overlayLine.setLength(0);
+        overlayLine.append("ship ").append(entities.getShip().getCount())
+                .append("  enemies ").append(entities.getEnemies().getCount())
+                .append("  bullets ").append(entities.getBullets().getCount());
+        drawOverlayLine(g, y + lineHeight);
+    }
+
+    private void appendTimings(String name, LatencyHistogram histogram) {
+        overlayLine.setLength(0);
+        overlayLine.append(name)
+                .append("  p50 ").append(histogram.getP50() / 1000)
+                .append("us  p99 ").append(histogram.getP99() / 1000)
+                .append("us  max ").append(histogram.getMax() / 1000).append("us");
+    }
+
+    private void drawOverlayLine(Graphics2D g, int y) {
+        int length = Math.min(overlayLine.length(), overlayChars.length);
+        overlayLine.getChars(0, length, overlayChars, 0);
+        g.drawChars(overlayChars, 0, length, 10, y);
+    }
+
+    /**
+     * Choose whether to redraw only what changed when the display allows it, or everything every frame
+     */
+    public void setDirtyRendering(boolean dirtyRendering) {
+        this.dirtyRendering = dirtyRendering;
+        fullRedrawNeeded = true;
+    }
+
+    /**
+     * @return The number of frames drawn in full
+     */
+    public long getFullRedraws() {
+        return fullRedraws;
+    }
+
+    /**
+     * @return The number of frames where only what changed was drawn
+     */
+    public long getPartialRedraws() {
+        return partialRedraws;
     }
 
     public String getMessage() {
@@ -0,0 +1,26 @@
+package spaceinvaders;
+
+import spaceinvaders.entities.EntityStore;
+
+/**
+ * A renderer that draws nothing. Used when the game runs without a
+ * window, e.g. on build and soak machines with no display.
+ */
+public class HeadlessView implements GameRenderer {
+    /**
+     * The message that would have been displayed while waiting for a key press
+     */
+    private String message = "";
+
+    public void drawGameObjects(EntityStore entities, double alpha) {
+        // nothing to draw to
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
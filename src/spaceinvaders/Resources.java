@@ -0,0 +1,67 @@
+package spaceinvaders;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the files the game ships with, such as sprites and levels. Each is
+ * looked for on the classpath first, so they can be shipped in the game's
+ * jar, falling back to a file relative to the working directory.
+ */
+public class Resources {
+
+    private Resources() {
+    }
+
+    /**
+     * Open a resource for reading
+     *
+     * @param ref The reference to the resource, e.g. "sprites/ship.gif"
+     */
+    public static InputStream open(String ref) throws IOException {
+        URL url = Resources.class.getClassLoader().getResource(ref);
+        if (url != null) {
+            return url.openStream();
+        }
+        return new FileInputStream(new File(ref));
+    }
+
+    /**
+     * Read every line of a UTF-8 text resource
+     */
+    public static List<String> readLines(String ref) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(open(ref), StandardCharsets.UTF_8))) {
+            List<String> lines = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+            return lines;
+        }
+    }
+
+    /**
+     * Read a manifest, a list of references one per line. Blank lines and
+     * lines starting with '#' are skipped.
+     *
+     * @return The references in the order listed
+     */
+    public static List<String> readManifest(String manifest) throws IOException {
+        List<String> refs = new ArrayList<>();
+        for (String line : readLines(manifest)) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                refs.add(line);
+            }
+        }
+        return refs;
+    }
+}
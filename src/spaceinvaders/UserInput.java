@@ -1,11 +1,22 @@
 package spaceinvaders;
 
+import spaceinvaders.input.InputEventRing;
+import spaceinvaders.input.InputRecorder;
+
 import java.awt.event.*;
 
 /**
+ * The state of the player's input as seen by the game thread.
+ * <p>
+ * AWT delivers events on its own thread, so the handlers don't touch this
+ * state directly. They queue each event on an {@link InputEventRing}, which
+ * the game thread drains at the start of its input processing each tick.
+ * A press that is released again before the game gets to it still counts
+ * for that tick.
+ *
  * Created by Andrew on 06/08/2016.
  */
-public class UserInput {
+public class UserInput implements InputEventRing.Handler {
     private boolean waitingForKeyPress = true;
     private boolean leftPressed = false;
     private boolean rightPressed = false;
@@ -13,6 +24,21 @@ public class UserInput {
     private int mouseX;
     private int mouseY;
     private boolean mouseClick = false;
+    /**
+     * Set by a press drained this tick, so a press and release between two ticks isn't lost
+     */
+    private boolean fireLatched = false;
+    private boolean mouseClickLatched = false;
+    private int pressCount = 1;
+    /**
+     * True if frame timings should be drawn over the game. Read by whichever thread draws.
+     */
+    private volatile boolean statsOverlayVisible = false;
+    private InputEventRing events = new InputEventRing();
+    /**
+     * Writes down every event as it's applied, or null if we aren't recording
+     */
+    private InputRecorder recorder;
     private Game game;
     private KeyInputHandler keyInputHandler;
     private MouseInputHandler mouseInputHandler;
@@ -33,6 +59,103 @@ public class UserInput {
         rightPressed = false;
         firePressed = false;
         mouseClick = false;
+        fireLatched = false;
+        mouseClickLatched = false;
+    }
+
+    /**
+     * Apply every input event queued since the last call. Game thread only.
+     *
+     * @return The number of events applied
+     */
+    public int pollEvents() {
+        // presses latched last tick have had their turn
+        fireLatched = false;
+        mouseClickLatched = false;
+        return events.drain(this);
+    }
+
+    public InputEventRing getEvents() {
+        return events;
+    }
+
+    public void setRecorder(InputRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    public void handleInputEvent(int type, int code, int x, int y, long time) {
+        if (recorder != null) {
+            recorder.recordEvent(game.getTickCount(), type, code, x, y);
+        }
+        switch (type) {
+            case InputEventRing.KEY_PRESSED:
+                // the overlay can be toggled at any time, even between games
+                if (code == KeyInputHandler.STATS_OVERLAY_KEY) {
+                    statsOverlayVisible = !statsOverlayVisible;
+                    return;
+                }
+                // if we're waiting for an "any key" typed then we don't
+                // want to do anything with just a "press"
+                if (waitingForKeyPress) {
+                    return;
+                }
+                if (code == KeyEvent.VK_LEFT) {
+                    leftPressed = true;
+                }
+                if (code == KeyEvent.VK_RIGHT) {
+                    rightPressed = true;
+                }
+                if (code == KeyEvent.VK_SPACE) {
+                    firePressed = true;
+                    fireLatched = true;
+                }
+                break;
+            case InputEventRing.KEY_RELEASED:
+                // if we're waiting for an "any key" typed then we don't
+                // want to do anything with just a "released"
+                if (waitingForKeyPress) {
+                    return;
+                }
+                if (code == KeyEvent.VK_LEFT) {
+                    leftPressed = false;
+                }
+                if (code == KeyEvent.VK_RIGHT) {
+                    rightPressed = false;
+                }
+                if (code == KeyEvent.VK_SPACE) {
+                    firePressed = false;
+                }
+                break;
+            case InputEventRing.KEY_TYPED:
+                // if we're waiting for a "any key" type then
+                // check if we've received any recently. We may
+                // have had a keyType() event from the user releasing
+                // the shoot or move keys, hence the use of the "pressCount"
+                // counter.
+                if (waitingForKeyPress) {
+                    if (pressCount == 1) {
+                        // since we've now received our key typed
+                        // event we can mark it as such and start
+                        // our new game
+                        pressAnyKey();
+                        pressCount = 0;
+                    } else {
+                        pressCount++;
+                    }
+                }
+                break;
+            case InputEventRing.MOUSE_MOVED:
+                mouseX = x;
+                mouseY = y;
+                break;
+            case InputEventRing.MOUSE_PRESSED:
+                mouseClick = true;
+                mouseClickLatched = true;
+                break;
+            case InputEventRing.MOUSE_RELEASED:
+                mouseClick = false;
+                break;
+        }
     }
 
     public boolean isWaitingForKeyPress() {
@@ -47,6 +170,10 @@ public class UserInput {
         return mouseInputHandler;
     }
 
+    public boolean isStatsOverlayVisible() {
+        return statsOverlayVisible;
+    }
+
     public boolean isLeftPressed() {
         return leftPressed;
     }
@@ -56,11 +183,11 @@ public class UserInput {
     }
 
     public boolean isFirePressed() {
-        return firePressed;
+        return firePressed || fireLatched;
     }
 
     public boolean isMouseClick(){
-        return mouseClick;
+        return mouseClick || mouseClickLatched;
     }
 
     public void waitForKeyPress() {
@@ -75,45 +202,51 @@ public class UserInput {
         return mouseY;
     }
 
+    /**
+     * Start a new game if we're waiting on one. This is what an "any key" press
+     * does in the window, and lets headless runs start games programmatically.
+     */
+    public void pressAnyKey() {
+        if (waitingForKeyPress) {
+            waitingForKeyPress = false;
+            game.startGame();
+        }
+    }
+
+    public void setLeftPressed(boolean leftPressed) {
+        this.leftPressed = leftPressed;
+    }
+
+    public void setRightPressed(boolean rightPressed) {
+        this.rightPressed = rightPressed;
+    }
+
+    public void setFirePressed(boolean firePressed) {
+        this.firePressed = firePressed;
+    }
+
+    public void setMousePosition(int mouseX, int mouseY) {
+        this.mouseX = mouseX;
+        this.mouseY = mouseY;
+    }
+
+    public void setMouseClick(boolean mouseClick) {
+        this.mouseClick = mouseClick;
+    }
+
     public class KeyInputHandler extends KeyAdapter {
         public static final int ESC_KEY_VALUE = 27;
-        private int pressCount = 1;
+        /**
+         * Shows or hides the frame timing overlay
+         */
+        public static final int STATS_OVERLAY_KEY = KeyEvent.VK_F3;
 
         public void keyPressed(KeyEvent e) {
-            // if we're waiting for an "any key" typed then we don't
-            // want to do anything with just a "press"
-            if (waitingForKeyPress) {
-                return;
-            }
-
-
-            if (e.getKeyCode() == KeyEvent.VK_LEFT) {
-                leftPressed = true;
-            }
-            if (e.getKeyCode() == KeyEvent.VK_RIGHT) {
-                rightPressed = true;
-            }
-            if (e.getKeyCode() == KeyEvent.VK_SPACE) {
-                firePressed = true;
-            }
+            events.offer(InputEventRing.KEY_PRESSED, e.getKeyCode(), 0, 0, System.nanoTime());
         }
 
         public void keyReleased(KeyEvent e) {
-            // if we're waiting for an "any key" typed then we don't
-            // want to do anything with just a "released"
-            if (waitingForKeyPress) {
-                return;
-            }
-
-            if (e.getKeyCode() == KeyEvent.VK_LEFT) {
-                leftPressed = false;
-            }
-            if (e.getKeyCode() == KeyEvent.VK_RIGHT) {
-                rightPressed = false;
-            }
-            if (e.getKeyCode() == KeyEvent.VK_SPACE) {
-                firePressed = false;
-            }
+            events.offer(InputEventRing.KEY_RELEASED, e.getKeyCode(), 0, 0, System.nanoTime());
         }
 
         /**
@@ -123,53 +256,31 @@ public class UserInput {
          * @param e The details of the key that was typed.
          */
         public void keyTyped(KeyEvent e) {
-            // if we're waiting for a "any key" type then
-            // check if we've received any recently. We may
-            // have had a keyType() event from the user releasing
-            // the shoot or move keys, hence the use of the "pressCount"
-            // counter.
-            if (waitingForKeyPress) {
-                if (pressCount == 1) {
-                    // since we've now received our key typed
-                    // event we can mark it as such and start
-                    // our new game
-                    waitingForKeyPress = false;
-                    game.startGame();
-                    pressCount = 0;
-                } else {
-                    pressCount++;
-                }
-            }
-
             // if we hit escape, then quit the game
             if (e.getKeyChar() == ESC_KEY_VALUE) {
                 System.exit(0);
             }
+
+            events.offer(InputEventRing.KEY_TYPED, e.getKeyChar(), 0, 0, System.nanoTime());
         }
     }
 
     public class MouseInputHandler extends MouseAdapter {
 
         public void mouseMoved(MouseEvent e) {
-            mouseX = e.getX();
-            mouseY = e.getY();
+            events.offer(InputEventRing.MOUSE_MOVED, 0, e.getX(), e.getY(), System.nanoTime());
         }
 
         public void mouseDragged(MouseEvent e) {
-            mouseX = e.getX();
-            mouseY = e.getY();
-        }
-
-        public void mouseClicked(MouseEvent e) {
-//            mouseClick = true;
+            events.offer(InputEventRing.MOUSE_MOVED, 0, e.getX(), e.getY(), System.nanoTime());
         }
 
         public void mousePressed(MouseEvent e) {
-            mouseClick = true;
+            events.offer(InputEventRing.MOUSE_PRESSED, e.getButton(), e.getX(), e.getY(), System.nanoTime());
         }
 
         public void mouseReleased(MouseEvent e){
-            mouseClick = false;
+            events.offer(InputEventRing.MOUSE_RELEASED, e.getButton(), e.getX(), e.getY(), System.nanoTime());
         }
     }
 }
@@ -0,0 +1,399 @@
+package spaceinvaders.entities;
+
+import spaceinvaders.sprites.CollisionMask;
+import spaceinvaders.sprites.Sprite;
+
+import java.util.Arrays;
+
+/**
+ * Dense storage for every entity of one kind, e.g. all the enemies. Rather
+ * than an object per entity each component is a primitive array indexed by
+ * entity, so systems can walk straight through memory. Every entity of an
+ * archetype shares the same sprite.
+ * <p>
+ * Positions may be relative to an origin shared by the whole archetype,
+ * e.g. an enemy formation, so moving every entity at once is a single
+ * update to the origin. Systems add the origin whenever they need an
+ * entity's absolute position.
+ * <p>
+ * Systems address entities by their dense index, which is only stable until
+ * the next call to {@link #removeDead()} as dead entities are swapped out with
+ * the last one. Anything that needs to hold on to an entity across ticks keeps
+ * its handle instead. A handle is a slot and a generation, and the generation
+ * is bumped whenever the slot is freed so stale handles are detected.
+ */
+public class Archetype {
+    public static final int DEFAULT_CAPACITY = 16;
+    /**
+     * Returned by {@link #indexOf(long)} when a handle's entity has been removed
+     */
+    public static final int NO_INDEX = -1;
+
+    private String name;
+    private Sprite sprite;
+    private CollisionMask collisionMask;
+    private int width;
+    private int height;
+
+    int count = 0;
+    /**
+     * The point every entity's position is relative to, now and at the start of the current tick
+     */
+    double originX = 0;
+    double originY = 0;
+    double prevOriginX = 0;
+    double prevOriginY = 0;
+    double[] x;
+    double[] y;
+    /**
+     * The location at the start of the current tick, used to draw between ticks
+     */
+    double[] prevX;
+    double[] prevY;
+    double[] dx;
+    double[] dy;
+    /**
+     * Hit points for enemies, uses left for bullets. An entity at zero or below is dead.
+     */
+    int[] hp;
+
+    /**
+     * The slot of each dense entity, and the dense index and generation of each slot
+     */
+    private int[] denseToSlot;
+    private int[] slotToDense;
+    private int[] slotGeneration;
+    private int[] freeSlots;
+    private int freeCount = 0;
+    private int slotCount = 0;
+
+    public Archetype(String name, Sprite sprite) {
+        this(name, sprite, DEFAULT_CAPACITY);
+    }
+
+    public Archetype(String name, Sprite sprite, int capacity) {
+        this.name = name;
+        this.sprite = sprite;
+        this.collisionMask = sprite.getCollisionMask();
+        this.width = sprite.getWidth();
+        this.height = sprite.getHeight();
+
+        capacity = Math.max(capacity, 1);
+        x = new double[capacity];
+        y = new double[capacity];
+        prevX = new double[capacity];
+        prevY = new double[capacity];
+        dx = new double[capacity];
+        dy = new double[capacity];
+        hp = new int[capacity];
+        denseToSlot = new int[capacity];
+        slotToDense = new int[capacity];
+        slotGeneration = new int[capacity];
+        freeSlots = new int[capacity];
+    }
+
+    /**
+     * Add a new entity
+     *
+     * @param x  The initial x location
+     * @param y  The initial y location
+     * @param dx The horizontal speed (pixels/sec)
+     * @param dy The vertical speed (pixels/sec)
+     * @param hp The starting hit points
+     * @return The handle of the new entity
+     */
+    public long add(double x, double y, double dx, double dy, int hp) {
+        if (count == this.x.length) {
+            grow(count * 2);
+        }
+
+        int index = count++;
+        this.x[index] = x;
+        this.y[index] = y;
+        this.prevX[index] = x;
+        this.prevY[index] = y;
+        this.dx[index] = dx;
+        this.dy[index] = dy;
+        this.hp[index] = hp;
+
+        int slot = freeCount > 0 ? freeSlots[--freeCount] : slotCount++;
+        denseToSlot[index] = slot;
+        slotToDense[slot] = index;
+        return handle(slot, slotGeneration[slot]);
+    }
+
+    /**
+     * Drop all dead entities in a single pass over every entity. Each dead
+     * entity is replaced by the last one, so the order of the living entities
+     * is not kept. When the dead are already known, {@link #remove(int[], int)}
+     * only visits them.
+     *
+     * @return The number of entities removed
+     */
+    public int removeDead() {
+        int removed = 0;
+        int i = 0;
+        while (i < count) {
+            if (hp[i] > 0) {
+                i++;
+                continue;
+            }
+
+            freeSlot(denseToSlot[i]);
+            int last = --count;
+            if (i != last) {
+                moveEntity(last, i);
+            }
+            removed++;
+        }
+        return removed;
+    }
+
+    /**
+     * Drop the given entities, each replaced by the last one. Only the removed
+     * entities are visited, so the cost doesn't depend on how many are left.
+     *
+     * @param indices The indices of the entities to remove, each listed once. Sorted in place.
+     * @param length  The number of indices to use
+     */
+    public void remove(int[] indices, int length) {
+        Arrays.sort(indices, 0, length);
+        // highest first, so the last entity is never one still waiting to be removed
+        for (int k = length - 1; k >= 0; k--) {
+            int i = indices[k];
+            freeSlot(denseToSlot[i]);
+            int last = --count;
+            if (i != last) {
+                moveEntity(last, i);
+            }
+        }
+    }
+
+    public void clear() {
+        for (int i = 0; i < count; i++) {
+            freeSlot(denseToSlot[i]);
+        }
+        count = 0;
+        originX = originY = prevOriginX = prevOriginY = 0;
+    }
+
+    /**
+     * Copy what's needed to draw these entities into another archetype, e.g. a
+     * snapshot for another thread to draw. The target only grows when it is
+     * too small, so copying into the same target each frame doesn't allocate.
+     *
+     * @param target The archetype to overwrite
+     */
+    public void copyPositionsTo(Archetype target) {
+        if (target.x.length < count) {
+            target.grow(x.length);
+        }
+        System.arraycopy(x, 0, target.x, 0, count);
+        System.arraycopy(y, 0, target.y, 0, count);
+        System.arraycopy(prevX, 0, target.prevX, 0, count);
+        System.arraycopy(prevY, 0, target.prevY, 0, count);
+        target.count = count;
+        target.originX = originX;
+        target.originY = originY;
+        target.prevOriginX = prevOriginX;
+        target.prevOriginY = prevOriginY;
+    }
+
+    /**
+     * A hash of every entity's exact position, movement and health, so two
+     * runs can cheaply check they are in the same state
+     *
+     * @param hash The hash so far
+     * @return The hash with these entities mixed in
+     */
+    public long digest(long hash) {
+        hash = mix(hash, count);
+        hash = mix(hash, Double.doubleToLongBits(originX));
+        hash = mix(hash, Double.doubleToLongBits(originY));
+        for (int i = 0; i < count; i++) {
+            hash = mix(hash, Double.doubleToLongBits(x[i]));
+            hash = mix(hash, Double.doubleToLongBits(y[i]));
+            hash = mix(hash, Double.doubleToLongBits(dx[i]));
+            hash = mix(hash, Double.doubleToLongBits(dy[i]));
+            hash = mix(hash, hp[i]);
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, long value) {
+        return hash * 31 + value;
+    }
+
+    /**
+     * Move the point every entity's position is relative to, without it counting as movement to draw between
+     */
+    public void setOrigin(double originX, double originY) {
+        this.originX = this.prevOriginX = originX;
+        this.originY = this.prevOriginY = originY;
+    }
+
+    /**
+     * Move every entity at once by shifting the origin
+     */
+    public void translate(double shiftX, double shiftY) {
+        originX += shiftX;
+        originY += shiftY;
+    }
+
+    public double getOriginX() {
+        return originX;
+    }
+
+    public double getOriginY() {
+        return originY;
+    }
+
+    /**
+     * Find the current index of an entity
+     *
+     * @param handle The handle returned when the entity was added
+     * @return The entity's index, or {@link #NO_INDEX} if it has been removed
+     */
+    public int indexOf(long handle) {
+        int slot = (int) handle;
+        if (slot < 0 || slot >= slotCount || slotGeneration[slot] != (int) (handle >>> 32)) {
+            return NO_INDEX;
+        }
+        return slotToDense[slot];
+    }
+
+    public boolean isAlive(long handle) {
+        int index = indexOf(handle);
+        return index != NO_INDEX && hp[index] > 0;
+    }
+
+    public long getHandle(int index) {
+        int slot = denseToSlot[index];
+        return handle(slot, slotGeneration[slot]);
+    }
+
+    private static long handle(int slot, int generation) {
+        return ((long) generation << 32) | slot;
+    }
+
+    private void freeSlot(int slot) {
+        slotGeneration[slot]++;
+        freeSlots[freeCount++] = slot;
+    }
+
+    private void moveEntity(int from, int to) {
+        x[to] = x[from];
+        y[to] = y[from];
+        prevX[to] = prevX[from];
+        prevY[to] = prevY[from];
+        dx[to] = dx[from];
+        dy[to] = dy[from];
+        hp[to] = hp[from];
+
+        int slot = denseToSlot[from];
+        denseToSlot[to] = slot;
+        slotToDense[slot] = to;
+    }
+
+    private void grow(int capacity) {
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        prevX = Arrays.copyOf(prevX, capacity);
+        prevY = Arrays.copyOf(prevY, capacity);
+        dx = Arrays.copyOf(dx, capacity);
+        dy = Arrays.copyOf(dy, capacity);
+        hp = Arrays.copyOf(hp, capacity);
+        denseToSlot = Arrays.copyOf(denseToSlot, capacity);
+        slotToDense = Arrays.copyOf(slotToDense, capacity);
+        slotGeneration = Arrays.copyOf(slotGeneration, capacity);
+        freeSlots = Arrays.copyOf(freeSlots, capacity);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Sprite getSprite() {
+        return sprite;
+    }
+
+    public CollisionMask getCollisionMask() {
+        return collisionMask;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * @return The absolute x location of an entity
+     */
+    public int getX(int index) {
+        return (int) (originX + x[index]);
+    }
+
+    /**
+     * @return The absolute y location of an entity
+     */
+    public int getY(int index) {
+        return (int) (originY + y[index]);
+    }
+
+    /**
+     * @return The x location of an entity relative to the origin
+     */
+    public double getOffsetX(int index) {
+        return x[index];
+    }
+
+    /**
+     * @return The y location of an entity relative to the origin
+     */
+    public double getOffsetY(int index) {
+        return y[index];
+    }
+
+    public double getHorizontalMovement(int index) {
+        return dx[index];
+    }
+
+    public void setHorizontalMovement(int index, double dx) {
+        this.dx[index] = dx;
+    }
+
+    public double getVerticalMovement(int index) {
+        return dy[index];
+    }
+
+    public void setVerticalMovement(int index, double dy) {
+        this.dy[index] = dy;
+    }
+
+    public int getHp(int index) {
+        return hp[index];
+    }
+
+    public void takeDamage(int index, int damage) {
+        hp[index] -= damage;
+    }
+
+    public boolean isDead(int index) {
+        return hp[index] <= 0;
+    }
+
+    public void kill(int index) {
+        hp[index] = 0;
+    }
+}
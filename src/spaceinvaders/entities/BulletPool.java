@@ -0,0 +1,99 @@
+package spaceinvaders.entities;
+
+/**
+ * A fixed capacity pool of bullet slots on top of the bullet archetype.
+ * Slots are allocated once up front, firing acquires one and removing a
+ * dead bullet releases it, so a steady stream of shots allocates nothing.
+ * <p>
+ * If every slot is in use the archetype has to grow, which is counted as a
+ * miss. The high water mark shows how big the pool needs to be.
+ */
+public class BulletPool {
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private Archetype bullets;
+    private int capacity;
+    private long hits = 0;
+    private long misses = 0;
+    private long releases = 0;
+    private int highWaterMark = 0;
+
+    public BulletPool(Archetype bullets, int capacity) {
+        this.bullets = bullets;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Take a slot from the pool for a new bullet
+     *
+     * @param x    The initial x location
+     * @param y    The initial y location
+     * @param dy   The vertical speed (pixels/sec)
+     * @param uses The number of enemies the bullet can hit
+     * @return The handle of the new bullet
+     */
+    public long acquire(int x, int y, double dy, int uses) {
+        if (bullets.count < capacity) {
+            hits++;
+        } else {
+            // the archetype doubles its arrays when full, so keep in step with it
+            misses++;
+            capacity *= 2;
+        }
+
+        long handle = bullets.add(x, y, 0, dy, uses);
+        if (bullets.count > highWaterMark) {
+            highWaterMark = bullets.count;
+        }
+        return handle;
+    }
+
+    /**
+     * Return the slots of every dead bullet to the pool
+     *
+     * @return The number of bullets released
+     */
+    public int releaseDead() {
+        int released = bullets.removeDead();
+        releases += released;
+        return released;
+    }
+
+    /**
+     * Return every slot to the pool, e.g. at the start of a new game
+     */
+    public void releaseAll() {
+        releases += bullets.count;
+        bullets.clear();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getInUse() {
+        return bullets.count;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getReleases() {
+        return releases;
+    }
+
+    public int getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    @Override
+    public String toString() {
+        return "bullet pool: capacity=" + capacity + " hits=" + hits + " misses=" + misses
+                + " releases=" + releases + " high water=" + highWaterMark;
+    }
+}
@@ -0,0 +1,148 @@
+package spaceinvaders.entities;
+
+import spaceinvaders.CollisionGrid;
+import spaceinvaders.sprites.CollisionMask;
+
+import java.util.Arrays;
+
+/**
+ * Resolves collisions between archetypes. The targets are bucketed into a
+ * {@link CollisionGrid} each tick so only entities sharing a cell are tested.
+ */
+public class CollisionSystem {
+    private CollisionGrid collisionGrid = new CollisionGrid();
+    /**
+     * The number of pairs narrowphase tested since the last {@link #prepare(Archetype)}
+     */
+    private int pairsTested = 0;
+    /**
+     * The targets killed since the last {@link #prepare(Archetype)}, by index
+     */
+    private int[] killed = new int[16];
+    private int killedCount = 0;
+
+    /**
+     * Fill the broadphase with the entities others will be tested against
+     *
+     * @param targets The entities to bucket
+     */
+    public void prepare(Archetype targets) {
+        collisionGrid.clear();
+        pairsTested = 0;
+        killedCount = 0;
+        for (int i = 0; i < targets.count; i++) {
+            collisionGrid.insert(i, (int) (targets.originX + targets.x[i]), (int) (targets.originY + targets.y[i]),
+                    targets.getWidth(), targets.getHeight());
+        }
+    }
+
+    /**
+     * Let every bullet damage the first target it hits. A bullet with no
+     * uses left does no damage, which prevents double kills. Targets killed
+     * are read back with {@link #getKilled(int)}.
+     *
+     * @param bullets The bullets in flight
+     * @param targets The targets prepared with {@link #prepare(Archetype)}
+     */
+    public void bulletsHitTargets(Archetype bullets, Archetype targets) {
+        int tested = 0;
+        for (int b = 0; b < bullets.count; b++) {
+            int candidates = collisionGrid.query((int) (bullets.originX + bullets.x[b]), (int) (bullets.originY + bullets.y[b]),
+                    bullets.getWidth(), bullets.getHeight());
+            for (int i = 0; i < candidates && bullets.hp[b] > 0; i++) {
+                int t = collisionGrid.getCandidate(i);
+                tested++;
+                if (collides(bullets, b, targets, t)) {
+                    targets.hp[t] -= 1;
+                    bullets.hp[b]--;
+                    if (targets.hp[t] == 0) {
+                        addKilled(t);
+                    }
+                }
+            }
+        }
+        pairsTested += tested;
+    }
+
+    /**
+     * Check if an entity touches any of the prepared targets
+     *
+     * @param archetype The archetype of the entity to check
+     * @param index     The entity to check
+     * @param targets   The targets prepared with {@link #prepare(Archetype)}
+     * @return True if the entity collides with at least one target
+     */
+    public boolean collidesWithAny(Archetype archetype, int index, Archetype targets) {
+        int candidates = collisionGrid.query((int) (archetype.originX + archetype.x[index]),
+                (int) (archetype.originY + archetype.y[index]),
+                archetype.getWidth(), archetype.getHeight());
+        for (int i = 0; i < candidates; i++) {
+            if (collides(archetype, index, targets, collisionGrid.getCandidate(i))) {
+                pairsTested += i + 1;
+                return true;
+            }
+        }
+        pairsTested += candidates;
+        return false;
+    }
+
+    private void addKilled(int index) {
+        if (killedCount == killed.length) {
+            killed = Arrays.copyOf(killed, killedCount * 2);
+        }
+        killed[killedCount++] = index;
+    }
+
+    /**
+     * Remove the targets killed since the last {@link #prepare(Archetype)}
+     * from their archetype, without scanning the survivors
+     *
+     * @param targets The targets prepared with {@link #prepare(Archetype)}
+     */
+    public void removeKilled(Archetype targets) {
+        targets.remove(killed, killedCount);
+    }
+
+    public int getPairsTested() {
+        return pairsTested;
+    }
+
+    /**
+     * @return The number of targets killed since the last {@link #prepare(Archetype)}
+     */
+    public int getKilledCount() {
+        return killedCount;
+    }
+
+    /**
+     * @param i Which kill, from 0 to {@link #getKilledCount()}
+     * @return The index of the target killed, valid until {@link #removeKilled(Archetype)}
+     */
+    public int getKilled(int i) {
+        return killed[i];
+    }
+
+    /**
+     * Check if two entities overlap. Their bounding boxes are compared first,
+     * which rules out almost every pair, then their sprites' collision masks
+     * if the archetypes have them.
+     */
+    public static boolean collides(Archetype a, int i, Archetype b, int j) {
+        int ax = (int) (a.originX + a.x[i]);
+        int ay = (int) (a.originY + a.y[i]);
+        int bx = (int) (b.originX + b.x[j]);
+        int by = (int) (b.originY + b.y[j]);
+
+        if (ax >= bx + b.getWidth() || bx >= ax + a.getWidth()
+                || ay >= by + b.getHeight() || by >= ay + a.getHeight()) {
+            return false;
+        }
+
+        CollisionMask aMask = a.getCollisionMask();
+        CollisionMask bMask = b.getCollisionMask();
+        if (aMask == null || bMask == null) {
+            return true;
+        }
+        return CollisionMask.overlaps(aMask, ax, ay, bMask, bx, by);
+    }
+}
@@ -0,0 +1,73 @@
+package spaceinvaders.entities;
+
+import spaceinvaders.sprites.SpriteStore;
+
+/**
+ * Holds every entity in the game, grouped by archetype.
+ */
+public class EntityStore {
+    public static final String SPRITES_SHIP_GIF = "sprites/ship.gif";
+    public static final String SPRITES_ENEMY_GIF = "sprites/enemy.gif";
+    public static final String SPRITES_BULLET_GIF = "sprites/bullet.gif";
+
+    private Archetype ship;
+    private Archetype enemies;
+    private Archetype bullets;
+    private BulletPool bulletPool;
+
+    /**
+     * @param sprites The store to take each archetype's sprite from
+     */
+    public EntityStore(SpriteStore sprites) {
+        ship = new Archetype("ship", sprites.getSprite(SPRITES_SHIP_GIF), 1);
+        enemies = new Archetype("enemy", sprites.getSprite(SPRITES_ENEMY_GIF));
+        bullets = new Archetype("bullet", sprites.getSprite(SPRITES_BULLET_GIF), BulletPool.DEFAULT_CAPACITY);
+        bulletPool = new BulletPool(bullets, BulletPool.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Remove every entity ready for a new game
+     */
+    public void clear() {
+        ship.clear();
+        enemies.clear();
+        bulletPool.releaseAll();
+    }
+
+    /**
+     * Copy what's needed to draw every entity into another store
+     *
+     * @param target The store to overwrite
+     */
+    public void copyPositionsTo(EntityStore target) {
+        ship.copyPositionsTo(target.ship);
+        enemies.copyPositionsTo(target.enemies);
+        bullets.copyPositionsTo(target.bullets);
+    }
+
+    /**
+     * @param hash The hash so far
+     * @return The hash with the state of every entity mixed in
+     */
+    public long digest(long hash) {
+        hash = ship.digest(hash);
+        hash = enemies.digest(hash);
+        return bullets.digest(hash);
+    }
+
+    public Archetype getShip() {
+        return ship;
+    }
+
+    public Archetype getEnemies() {
+        return enemies;
+    }
+
+    public Archetype getBullets() {
+        return bullets;
+    }
+
+    public BulletPool getBulletPool() {
+        return bulletPool;
+    }
+}
@@ -0,0 +1,64 @@
+package spaceinvaders.entities;
+
+import spaceinvaders.Game;
+
+/**
+ * Moves entities based on their speed and the time elapsed.
+ */
+public class MovementSystem {
+    /**
+     * Remember where every entity is as the start of the next tick
+     *
+     * @param archetype The entities to update
+     */
+    public void savePositions(Archetype archetype) {
+        saveOrigin(archetype);
+        System.arraycopy(archetype.x, 0, archetype.prevX, 0, archetype.count);
+        System.arraycopy(archetype.y, 0, archetype.prevY, 0, archetype.count);
+    }
+
+    /**
+     * Remember where the origin of an archetype is as the start of the next tick. This
+     * is all that's needed for archetypes whose entities only ever move with their origin.
+     *
+     * @param archetype The entities to update
+     */
+    public void saveOrigin(Archetype archetype) {
+        archetype.prevOriginX = archetype.originX;
+        archetype.prevOriginY = archetype.originY;
+    }
+
+    /**
+     * Move every entity of an archetype based on a certain amount of time passing.
+     *
+     * @param archetype The entities to move
+     * @param delta     The amount of time that has passed in milliseconds
+     */
+    public void move(Archetype archetype, long delta) {
+        double[] x = archetype.x;
+        double[] y = archetype.y;
+        double[] dx = archetype.dx;
+        double[] dy = archetype.dy;
+
+        for (int i = 0; i < archetype.count; i++) {
+            x[i] += (delta * dx[i]) / 1000;
+            y[i] += (delta * dy[i]) / 1000;
+        }
+    }
+
+    /**
+     * Kill any entity that has left the screen entirely
+     *
+     * @param archetype The entities to check
+     */
+    public void killOffScreen(Archetype archetype) {
+        for (int i = 0; i < archetype.count; i++) {
+            double x = archetype.originX + archetype.x[i];
+            double y = archetype.originY + archetype.y[i];
+            if (x < 0 - Game.SCREEN_EDGE_OUTER_BUFFER || x > Game.MAX_X + Game.SCREEN_EDGE_OUTER_BUFFER
+                    || y < 0 - Game.SCREEN_EDGE_OUTER_BUFFER || y > Game.MAX_Y + Game.SCREEN_EDGE_OUTER_BUFFER) {
+                archetype.hp[i] = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package spaceinvaders.entities;
+
+import spaceinvaders.render.DrawnPositions;
+import spaceinvaders.sprites.Sprite;
+
+import java.awt.*;
+
+/**
+ * Draws entities to a graphics context. Every sprite is a region of the
+ * same {@link spaceinvaders.sprites.SpriteAtlas}, so drawing one archetype
+ * after another never switches source surface.
+ */
+public class RenderSystem {
+    /**
+     * Work out where every entity of an archetype will be drawn, part way
+     * between its previous and current location
+     *
+     * @param archetype The entities to place
+     * @param alpha     How far towards the current location to draw, from 0 to 1
+     * @param positions Where to put the result
+     */
+    public void layout(Archetype archetype, double alpha, DrawnPositions positions) {
+        double[] x = archetype.x;
+        double[] y = archetype.y;
+        double[] prevX = archetype.prevX;
+        double[] prevY = archetype.prevY;
+        double originX = archetype.prevOriginX + (archetype.originX - archetype.prevOriginX) * alpha;
+        double originY = archetype.prevOriginY + (archetype.originY - archetype.prevOriginY) * alpha;
+
+        positions.reset(archetype.count);
+        for (int i = 0; i < archetype.count; i++) {
+            positions.set(i, (int) (originX + prevX[i] + (x[i] - prevX[i]) * alpha),
+                    (int) (originY + prevY[i] + (y[i] - prevY[i]) * alpha));
+        }
+    }
+
+    /**
+     * Draw a sprite at every position that overlaps a rectangle
+     *
+     * @param g         The graphics context on which to draw, clipped to the rectangle
+     * @param sprite    The sprite to draw
+     * @param positions Where to draw it
+     */
+    public void draw(Graphics g, Sprite sprite, DrawnPositions positions, int clipX, int clipY, int clipWidth, int clipHeight) {
+        int width = sprite.getWidth();
+        int height = sprite.getHeight();
+        for (int i = 0; i < positions.getCount(); i++) {
+            int x = positions.getX(i);
+            int y = positions.getY(i);
+            if (x < clipX + clipWidth && clipX < x + width && y < clipY + clipHeight && clipY < y + height) {
+                sprite.draw(g, x, y);
+            }
+        }
+    }
+}
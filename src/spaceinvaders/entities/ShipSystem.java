@@ -0,0 +1,118 @@
+package spaceinvaders.entities;
+
+import spaceinvaders.Game;
+import spaceinvaders.jfr.BulletSpawnEvent;
+
+/**
+ * Controls the player's ship, the single entity of the ship archetype.
+ */
+public class ShipSystem {
+    public static final int DEFAULT_SHIP_MOVE_SPEED = 300;
+    public static final int DEFAULT_FIRING_INTERVAL = 100;
+    public static final int DEFAULT_BULLET_MOVE_SPEED = -300;
+
+    private Archetype ship;
+    private Archetype bullets;
+    private BulletPool bulletPool;
+    private double moveSpeed = DEFAULT_SHIP_MOVE_SPEED;
+    private long lastFireTime = -DEFAULT_FIRING_INTERVAL;
+    private long firingInterval = DEFAULT_FIRING_INTERVAL;
+
+    public ShipSystem(EntityStore entities) {
+        this.ship = entities.getShip();
+        this.bullets = entities.getBullets();
+        this.bulletPool = entities.getBulletPool();
+    }
+
+    /**
+     * Create the player's ship, replacing any existing one
+     *
+     * @param x The initial x location of the player's ship
+     * @param y The initial y location of the player's ship
+     */
+    public void spawn(int x, int y) {
+        ship.clear();
+        ship.add(x, y, 0, 0, 1);
+        lastFireTime = -firingInterval;
+    }
+
+    /**
+     * Move the ship based on an elapsed amount of time, stopping at the edges of the screen
+     *
+     * @param delta The time that has elapsed since last move (ms)
+     */
+    public void move(long delta) {
+        double dx = ship.dx[0];
+        double x = ship.x[0];
+
+        // if we're moving left and have reached the left hand side
+        // of the screen, don't move
+        if ((dx < 0) && (x < Game.SCREEN_EDGE_INNER_BUFFER)) {
+            return;
+        }
+        // if we're moving right and have reached the right hand side
+        // of the screen, don't move
+        if ((dx > 0) && (x > Game.MAX_X - Game.SCREEN_EDGE_INNER_BUFFER)) {
+            return;
+        }
+
+        ship.x[0] += (delta * dx) / 1000;
+        ship.y[0] += (delta * ship.dy[0]) / 1000;
+    }
+
+    public void moveStop() {
+        ship.dx[0] = 0;
+    }
+
+    public void moveLeft() {
+        ship.dx[0] = -moveSpeed;
+    }
+
+    public void moveRight() {
+        ship.dx[0] = moveSpeed;
+    }
+
+    /**
+     * Attempt to fire a bullet from the player. Its called "try"
+     * since we must first check that the player can fire at this
+     * point, i.e. has he/she waited long enough between bullets
+     *
+     * @param gameTime The current game time (ms)
+     */
+    public void tryToFire(long gameTime) {
+        // if too soon after last shot, cannot fire new shot
+        if (gameTime - lastFireTime < firingInterval) {
+            return;
+        }
+
+        lastFireTime = gameTime;
+        // centre the bullet on the top of the ship
+        int x = getX() + ship.getWidth() / 2 - bullets.getWidth() / 2;
+        int y = getY() - bullets.getHeight();
+        bulletPool.acquire(x, y, DEFAULT_BULLET_MOVE_SPEED, 1);
+
+        BulletSpawnEvent event = new BulletSpawnEvent();
+        if (event.isEnabled()) {
+            event.x = x;
+            event.y = y;
+            event.gameTime = gameTime;
+            event.bullets = bullets.getCount();
+            event.commit();
+        }
+    }
+
+    /**
+     * @param firingInterval The shortest time allowed between shots (ms)
+     */
+    public void setFiringInterval(long firingInterval) {
+        this.firingInterval = firingInterval;
+    }
+
+    public int getX() {
+        return (int) ship.x[0];
+    }
+
+    public int getY() {
+        return (int) ship.y[0];
+    }
+}
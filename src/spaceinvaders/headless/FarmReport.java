@@ -0,0 +1,93 @@
+package spaceinvaders.headless;
+
+/**
+ * Totals for a batch of simulated games, e.g. how often the bots won and
+ * how long each wave took them to clear.
+ */
+public class FarmReport {
+    private int waves;
+    private int games = 0;
+    private int wins = 0;
+    private int deaths = 0;
+    private int timeouts = 0;
+    private long wavesCleared = 0;
+    private long ticks = 0;
+    private long score = 0;
+    /**
+     * The total time taken to clear each wave, and the number of games that cleared it
+     */
+    private long[] clearTime;
+    private int[] clears;
+
+    /**
+     * @param waves The number of waves each game is played for
+     */
+    public FarmReport(int waves) {
+        this.waves = waves;
+        clearTime = new long[waves];
+        clears = new int[waves];
+    }
+
+    public void add(GameOutcome outcome) {
+        games++;
+        if (outcome.isWon()) {
+            wins++;
+        } else if (outcome.isDead()) {
+            deaths++;
+        } else {
+            timeouts++;
+        }
+        wavesCleared += outcome.getWavesCleared();
+        ticks += outcome.getTicks();
+        score += outcome.getScore();
+        for (int wave = 0; wave < outcome.getWavesCleared(); wave++) {
+            clearTime[wave] += outcome.getClearTime(wave);
+            clears[wave]++;
+        }
+    }
+
+    public int getGames() {
+        return games;
+    }
+
+    /**
+     * @return The fraction of games where every wave was cleared
+     */
+    public double getWinRate() {
+        return games == 0 ? 0 : (double) wins / games;
+    }
+
+    public int getDeaths() {
+        return deaths;
+    }
+
+    /**
+     * @return The total number of ticks simulated
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * @param wave The wave, starting at 0
+     * @return The mean time taken by the games that cleared the wave (ms), or -1 if none did
+     */
+    public double getMeanClearTime(int wave) {
+        return clears[wave] == 0 ? -1 : (double) clearTime[wave] / clears[wave];
+    }
+
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("games=%d win rate=%.1f%% deaths=%d timeouts=%d mean waves cleared=%.2f mean score=%.0f",
+                games, 100 * getWinRate(), deaths, timeouts, games == 0 ? 0 : (double) wavesCleared / games,
+                games == 0 ? 0 : (double) score / games));
+        for (int wave = 0; wave < waves; wave++) {
+            report.append(System.lineSeparator()).append("  wave ").append(wave + 1)
+                    .append(": cleared by ").append(clears[wave]);
+            if (clears[wave] > 0) {
+                report.append(String.format(", mean time to clear %.1fs", getMeanClearTime(wave) / 1000));
+            }
+        }
+        return report.toString();
+    }
+}
@@ -0,0 +1,70 @@
+package spaceinvaders.headless;
+
+/**
+ * How one simulated game played out.
+ */
+public class GameOutcome {
+    /**
+     * How long each cleared wave took, in game time (ms)
+     */
+    private long[] clearTimes;
+    private int wavesCleared = 0;
+    private boolean died = false;
+    private long ticks = 0;
+    private long score = 0;
+
+    /**
+     * @param waves The number of waves the game is played for
+     */
+    public GameOutcome(int waves) {
+        clearTimes = new long[waves];
+    }
+
+    void waveCleared(long clearTime) {
+        clearTimes[wavesCleared++] = clearTime;
+    }
+
+    void finish(boolean died, long ticks, long score) {
+        this.died = died;
+        this.ticks = ticks;
+        this.score = score;
+    }
+
+    /**
+     * @return True if every wave was cleared
+     */
+    public boolean isWon() {
+        return wavesCleared == clearTimes.length;
+    }
+
+    public boolean isDead() {
+        return died;
+    }
+
+    /**
+     * @return True if the game ran out of ticks before it was won or lost
+     */
+    public boolean isTimedOut() {
+        return !died && !isWon();
+    }
+
+    public int getWavesCleared() {
+        return wavesCleared;
+    }
+
+    /**
+     * @param wave The wave, starting at 0
+     * @return How long the wave took to clear (ms)
+     */
+    public long getClearTime(int wave) {
+        return clearTimes[wave];
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public long getScore() {
+        return score;
+    }
+}
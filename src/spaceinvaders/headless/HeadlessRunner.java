@@ -0,0 +1,75 @@
+package spaceinvaders.headless;
+
+import spaceinvaders.Game;
+
+/**
+ * Runs the game with no window, as fast as the CPU allows, for load tests
+ * and regression checks on machines without a display.
+ * <p>
+ * Usage: HeadlessRunner [ticks] [formation=ROWSxCOLUMNS]
+ */
+public class HeadlessRunner {
+    public static final int DEFAULT_TICKS = 100000;
+    private Game game;
+    private Player player;
+    private long tickDelta = Game.TICK_MS;
+
+    public HeadlessRunner(Player player) {
+        this(new Game(true), player);
+    }
+
+    /**
+     * @param game   A game created with no display
+     * @param player The player to ask for input each tick
+     */
+    public HeadlessRunner(Game game, Player player) {
+        this.game = game;
+        this.player = player;
+    }
+
+    public static void main(String argv[]) {
+        // make sure AWT never tries to find a display
+        System.setProperty("java.awt.headless", "true");
+
+        int ticks = argv.length > 0 ? Integer.parseInt(argv[0]) : DEFAULT_TICKS;
+        HeadlessRunner runner = new HeadlessRunner(new SweepingPlayer());
+        for (int i = 1; i < argv.length; i++) {
+            if (argv[i].startsWith("formation=")) {
+                String[] size = argv[i].substring("formation=".length()).split("x");
+                runner.getGame().setFormationSize(Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+            }
+        }
+
+        long start = System.nanoTime();
+        runner.run(ticks);
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println("Ran " + ticks + " ticks in " + (elapsed / 1000000) + " ms ("
+                + (long) (ticks / (elapsed / 1e9)) + " ticks/s)");
+        System.out.println(runner.getGame().getEntities().getBulletPool());
+    }
+
+    /**
+     * Run the game for a number of ticks, or until it is stopped
+     *
+     * @param ticks The number of ticks to run
+     */
+    public void run(long ticks) {
+        for (long i = 0; i < ticks && game.isRunning(); i++) {
+            player.play(game, game.getUserInput());
+            // the player may have ended the game
+            if (!game.isRunning()) {
+                break;
+            }
+            game.tick(tickDelta);
+        }
+    }
+
+    public Game getGame() {
+        return game;
+    }
+
+    public void setTickDelta(long tickDelta) {
+        this.tickDelta = tickDelta;
+    }
+}
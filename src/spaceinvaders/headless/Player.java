@@ -0,0 +1,18 @@
+package spaceinvaders.headless;
+
+import spaceinvaders.Game;
+import spaceinvaders.UserInput;
+
+/**
+ * A programmatic source of input for a headless game. The player is asked
+ * once per tick, before the tick runs, to set whatever input it wants.
+ */
+public interface Player {
+    /**
+     * Decide on the input for the next tick
+     *
+     * @param game  The game being played
+     * @param input The input state the game will read this tick
+     */
+    void play(Game game, UserInput input);
+}
@@ -0,0 +1,82 @@
+package spaceinvaders.headless;
+
+import spaceinvaders.Game;
+import spaceinvaders.UserInput;
+import spaceinvaders.input.InputRecording;
+
+/**
+ * Plays back a recorded session, feeding each recorded event into the
+ * game's input ring so it's applied on the same tick as it was originally.
+ * Every checkpoint in the recording is compared against the game's state
+ * as the replay passes it, and so is the final state at the end. The game
+ * is stopped at the end of the recording, or as soon as it drifts from the
+ * original.
+ */
+public class ReplayPlayer implements Player {
+    private InputRecording recording;
+    private int checkpointsPassed = 0;
+    /**
+     * The tick the replay first disagreed with the recording on, or -1 if it hasn't
+     */
+    private long divergedAt = -1;
+    /**
+     * True once the final state has been compared and matched
+     */
+    private boolean finalStateMatched = false;
+
+    public ReplayPlayer(InputRecording recording) {
+        this.recording = recording;
+    }
+
+    public void play(Game game, UserInput input) {
+        long lastTick = game.getTickCount();
+
+        // check the tick that's just run against what was recorded at the end of it
+        while (recording.peekTick() == lastTick && (recording.peekType() == InputRecording.CHECKPOINT
+                || recording.peekType() == InputRecording.END)) {
+            recording.next();
+            if (recording.getDigest() != game.getStateDigest()) {
+                divergedAt = lastTick;
+                game.stop();
+                return;
+            }
+            if (recording.getType() == InputRecording.END) {
+                finalStateMatched = true;
+                game.stop();
+                return;
+            }
+            checkpointsPassed++;
+        }
+        // a recording cut short, e.g. by a crash, has no end to check against
+        if (recording.peekTick() < 0) {
+            game.stop();
+            return;
+        }
+
+        // queue up everything the next tick applied
+        while (recording.peekTick() == lastTick + 1 && recording.peekType() != InputRecording.CHECKPOINT
+                && recording.peekType() != InputRecording.END) {
+            recording.next();
+            input.getEvents().offer(recording.getType(), recording.getCode(), recording.getX(), recording.getY(), 0);
+        }
+    }
+
+    public int getCheckpointsPassed() {
+        return checkpointsPassed;
+    }
+
+    /**
+     * @return True if the replay reached the end of the recording in the same state
+     */
+    public boolean isFinalStateMatched() {
+        return finalStateMatched;
+    }
+
+    public boolean hasDiverged() {
+        return divergedAt >= 0;
+    }
+
+    public long getDivergedAt() {
+        return divergedAt;
+    }
+}
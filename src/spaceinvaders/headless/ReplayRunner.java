@@ -0,0 +1,48 @@
+package spaceinvaders.headless;
+
+import spaceinvaders.input.InputRecording;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Replays a session recorded with the {@link spaceinvaders.Game#RECORD_PROPERTY}
+ * property as fast as the CPU allows, and checks it plays out exactly as it
+ * did originally. Exits with a non-zero status if it doesn't.
+ * <p>
+ * Usage: ReplayRunner recording
+ */
+public class ReplayRunner {
+
+    public static void main(String argv[]) throws IOException {
+        // make sure AWT never tries to find a display
+        System.setProperty("java.awt.headless", "true");
+
+        if (argv.length < 1) {
+            System.err.println("Usage: ReplayRunner recording");
+            System.exit(2);
+        }
+
+        ReplayPlayer player = new ReplayPlayer(new InputRecording(Paths.get(argv[0])));
+        HeadlessRunner runner = new HeadlessRunner(player);
+
+        long start = System.nanoTime();
+        runner.run(Long.MAX_VALUE);
+        long elapsed = System.nanoTime() - start;
+
+        long ticks = runner.getGame().getTickCount();
+        System.out.println("Replayed " + ticks + " ticks in " + (elapsed / 1000000) + " ms ("
+                + (long) (ticks / (elapsed / 1e9)) + " ticks/s)");
+        if (player.hasDiverged()) {
+            System.out.println("Replay diverged from the recording at tick " + player.getDivergedAt()
+                    + " after " + player.getCheckpointsPassed() + " matching checkpoints");
+            System.exit(1);
+        }
+        if (!player.isFinalStateMatched()) {
+            System.out.println("Replay matched all " + player.getCheckpointsPassed()
+                    + " checkpoints, but the recording has no end to check the final state against");
+            System.exit(1);
+        }
+        System.out.println("Replay matched all " + player.getCheckpointsPassed() + " checkpoints and the final state");
+    }
+}
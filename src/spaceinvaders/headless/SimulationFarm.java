@@ -0,0 +1,232 @@
+package spaceinvaders.headless;
+
+import spaceinvaders.Game;
+import spaceinvaders.UserInput;
+import spaceinvaders.levels.LevelLoader;
+import spaceinvaders.sprites.SpriteStore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.LongFunction;
+
+/**
+ * Plays batches of independent headless games across every core, each
+ * driven by its own bot, and totals up how they went. Used to see how a
+ * change to the game's tuning, e.g. how quickly enemies speed up or how
+ * often the player can fire, changes how hard it is.
+ * <p>
+ * Every game shares the same sprites and levels, which never change once
+ * loaded, and nothing else. Game i is always played by a bot seeded with
+ * i, so a batch gives the same results however many threads it runs on.
+ * <p>
+ * Usage: SimulationFarm [games] [player=sweep|track] [threads=N,N,...] [waves=N]
+ * [speedup=X] [firing=MS] [maxTicks=N]
+ * <p>
+ * Giving several thread counts runs the batch once for each, to show how
+ * games/s scales with cores.
+ */
+public class SimulationFarm {
+    public static final int DEFAULT_GAMES = 1000;
+    /**
+     * The number of waves a game has to clear to count as a win
+     */
+    public static final int DEFAULT_WAVES = 3;
+    /**
+     * The longest a game is played for before it's called a timeout, 10 minutes of game time
+     */
+    public static final long DEFAULT_MAX_TICKS = 10 * 60 * 1000 / Game.TICK_MS;
+
+    private SpriteStore sprites = new SpriteStore();
+    private LevelLoader levels = new LevelLoader(LevelLoader.MANIFEST);
+    /**
+     * Creates the bot for a game from its seed
+     */
+    private LongFunction<Player> players;
+    private int waves = DEFAULT_WAVES;
+    private long maxTicks = DEFAULT_MAX_TICKS;
+    /**
+     * Tuning to play with in place of the defaults, or 0 to leave the default
+     */
+    private double enemySpeedIncrease = 0;
+    private long firingInterval = 0;
+
+    public SimulationFarm(LongFunction<Player> players) {
+        this.players = players;
+    }
+
+    public static void main(String argv[]) {
+        // make sure AWT never tries to find a display
+        System.setProperty("java.awt.headless", "true");
+
+        int games = argv.length > 0 ? Integer.parseInt(argv[0]) : DEFAULT_GAMES;
+        String player = "track";
+        int[] threads = {Runtime.getRuntime().availableProcessors()};
+        SimulationFarm farm = new SimulationFarm(null);
+        for (int i = 1; i < argv.length; i++) {
+            String[] option = argv[i].split("=", 2);
+            switch (option[0]) {
+                case "player":
+                    player = option[1];
+                    break;
+                case "threads":
+                    String[] counts = option[1].split(",");
+                    threads = new int[counts.length];
+                    for (int t = 0; t < counts.length; t++) {
+                        threads[t] = Integer.parseInt(counts[t]);
+                    }
+                    break;
+                case "waves":
+                    farm.setWaves(Integer.parseInt(option[1]));
+                    break;
+                case "speedup":
+                    farm.setEnemySpeedIncrease(Double.parseDouble(option[1]));
+                    break;
+                case "firing":
+                    farm.setFiringInterval(Long.parseLong(option[1]));
+                    break;
+                case "maxTicks":
+                    farm.setMaxTicks(Long.parseLong(option[1]));
+                    break;
+                default:
+                    System.err.println("Unknown option: " + argv[i]);
+                    System.exit(1);
+            }
+        }
+        farm.players = playersFor(player);
+
+        // let the JIT settle before anything is timed
+        farm.run(Math.max(1, games / 10), threads[0]);
+
+        for (int count : threads) {
+            long start = System.nanoTime();
+            FarmReport report = farm.run(games, count);
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            System.out.println(String.format("%d threads: %d games in %.2fs (%.1f games/s, %.0f ticks/s)",
+                    count, games, elapsed, games / elapsed, report.getTicks() / elapsed));
+            if (count == threads[threads.length - 1]) {
+                System.out.println(report);
+            }
+        }
+    }
+
+    /**
+     * @param name The name of a bot, "sweep" or "track"
+     * @return A factory for that bot
+     */
+    public static LongFunction<Player> playersFor(String name) {
+        switch (name) {
+            case "sweep":
+                return seed -> {
+                    Random random = new Random(seed);
+                    int sweep = 1 + random.nextInt(2 * SweepingPlayer.DEFAULT_SWEEP_SPEED);
+                    return new SweepingPlayer(Game.SCREEN_EDGE_INNER_BUFFER
+                            + random.nextInt(Game.MAX_X - 2 * Game.SCREEN_EDGE_INNER_BUFFER),
+                            random.nextBoolean() ? sweep : -sweep);
+                };
+            case "track":
+                return TrackingPlayer::new;
+            default:
+                throw new IllegalArgumentException("Unknown player: " + name);
+        }
+    }
+
+    /**
+     * Play a batch of games
+     *
+     * @param games   The number of games to play
+     * @param threads The number of games to play at once
+     * @return The totals for every game
+     */
+    public FarmReport run(int games, int threads) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "Simulation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<CompletableFuture<GameOutcome>> outcomes = new ArrayList<>(games);
+            for (int i = 0; i < games; i++) {
+                long seed = i;
+                outcomes.add(CompletableFuture.supplyAsync(() -> play(seed), pool));
+            }
+
+            // add them up in order, so the totals never depend on which game finished first
+            FarmReport report = new FarmReport(waves);
+            for (CompletableFuture<GameOutcome> outcome : outcomes) {
+                report.add(outcome.join());
+            }
+            return report;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Play one game from the start until the player dies, clears every wave or runs out of time
+     *
+     * @param seed The seed for the game's bot
+     */
+    public GameOutcome play(long seed) {
+        Game game = new Game(true, sprites, levels);
+        if (enemySpeedIncrease > 0) {
+            game.setEnemySpeedIncrease(enemySpeedIncrease);
+        }
+        if (firingInterval > 0) {
+            game.setFiringInterval(firingInterval);
+        }
+        Player player = players.apply(seed);
+        UserInput input = game.getUserInput();
+        GameOutcome outcome = new GameOutcome(waves);
+
+        input.pressAnyKey();
+        long waveStart = game.getGameTime();
+        boolean died = false;
+        while (game.getTickCount() < maxTicks) {
+            player.play(game, input);
+            game.tick(Game.TICK_MS);
+            if (!input.isWaitingForKeyPress()) {
+                continue;
+            }
+
+            if (!game.isWaveCleared()) {
+                died = true;
+                break;
+            }
+            outcome.waveCleared(game.getGameTime() - waveStart);
+            if (outcome.isWon()) {
+                break;
+            }
+            input.pressAnyKey();
+            waveStart = game.getGameTime();
+        }
+
+        outcome.finish(died, game.getTickCount(), game.getScore());
+        return outcome;
+    }
+
+    public void setWaves(int waves) {
+        this.waves = waves;
+    }
+
+    public void setMaxTicks(long maxTicks) {
+        this.maxTicks = maxTicks;
+    }
+
+    /**
+     * @param enemySpeedIncrease How much enemies speed up each time one is killed, or 0 for each level's setting
+     */
+    public void setEnemySpeedIncrease(double enemySpeedIncrease) {
+        this.enemySpeedIncrease = enemySpeedIncrease;
+    }
+
+    /**
+     * @param firingInterval The shortest time allowed between the player's shots (ms), or 0 for the default
+     */
+    public void setFiringInterval(long firingInterval) {
+        this.firingInterval = firingInterval;
+    }
+}
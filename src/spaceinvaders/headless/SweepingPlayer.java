@@ -0,0 +1,41 @@
+package spaceinvaders.headless;
+
+import spaceinvaders.Game;
+import spaceinvaders.UserInput;
+
+/**
+ * A simple player that sweeps the mouse back and forth across the screen
+ * holding fire, and starts a new game whenever one is waiting.
+ */
+public class SweepingPlayer implements Player {
+    public static final int DEFAULT_SWEEP_SPEED = 4;
+
+    private int mouseX;
+    private int sweep;
+
+    public SweepingPlayer() {
+        this(Game.MAX_X / 2, DEFAULT_SWEEP_SPEED);
+    }
+
+    /**
+     * @param startX The x location to start sweeping from
+     * @param sweep  How far to move the mouse each tick (pixels), negative to start off to the left
+     */
+    public SweepingPlayer(int startX, int sweep) {
+        this.mouseX = startX;
+        this.sweep = sweep;
+    }
+
+    public void play(Game game, UserInput input) {
+        if (input.isWaitingForKeyPress()) {
+            input.pressAnyKey();
+        }
+
+        mouseX += sweep;
+        if (mouseX < Game.SCREEN_EDGE_INNER_BUFFER || mouseX > Game.MAX_X - Game.SCREEN_EDGE_INNER_BUFFER) {
+            sweep = -sweep;
+        }
+        input.setMousePosition(mouseX, Game.MAX_Y - Game.SCREEN_EDGE_INNER_BUFFER);
+        input.setMouseClick(true);
+    }
+}
@@ -0,0 +1,74 @@
+package spaceinvaders.headless;
+
+import spaceinvaders.Game;
+import spaceinvaders.UserInput;
+import spaceinvaders.entities.Archetype;
+
+import java.util.Random;
+
+/**
+ * A player that chases the enemy closest to the bottom of the screen,
+ * holding fire. It only picks a new target every so often and aims a
+ * little off, so players with different seeds play differently.
+ */
+public class TrackingPlayer implements Player {
+    /**
+     * How often the player picks a new target (ticks)
+     */
+    public static final int DEFAULT_REACTION_TICKS = 20;
+    /**
+     * The most the player's aim is off by (pixels)
+     */
+    public static final int DEFAULT_AIM_ERROR = 24;
+
+    private Random random;
+    private int reactionTicks;
+    private int aimError;
+    private int ticksUntilTarget = 0;
+    private int targetX = Game.MAX_X / 2;
+
+    public TrackingPlayer(long seed) {
+        this(seed, DEFAULT_REACTION_TICKS, DEFAULT_AIM_ERROR);
+    }
+
+    /**
+     * @param seed          The seed for the player's reactions and aim
+     * @param reactionTicks How often the player picks a new target (ticks)
+     * @param aimError      The most the player's aim is off by (pixels)
+     */
+    public TrackingPlayer(long seed, int reactionTicks, int aimError) {
+        this.random = new Random(seed);
+        this.reactionTicks = reactionTicks;
+        this.aimError = aimError;
+    }
+
+    public void play(Game game, UserInput input) {
+        if (input.isWaitingForKeyPress()) {
+            input.pressAnyKey();
+        }
+
+        if (--ticksUntilTarget <= 0) {
+            // jitter the reaction time too, so the player doesn't fall into step with the formation
+            ticksUntilTarget = reactionTicks / 2 + random.nextInt(reactionTicks);
+            // the ship follows the mouse with its left edge, so line its centre up with the target
+            int shipCentre = game.getEntities().getShip().getWidth() / 2;
+            targetX = pickTarget(game.getEntities().getEnemies()) - shipCentre
+                    + random.nextInt(2 * aimError + 1) - aimError;
+        }
+        input.setMousePosition(targetX, Game.MAX_Y - Game.SCREEN_EDGE_INNER_BUFFER);
+        input.setMouseClick(true);
+    }
+
+    /**
+     * @return The centre of the lowest enemy, or the middle of the screen if there are none
+     */
+    private int pickTarget(Archetype enemies) {
+        int lowest = -1;
+        for (int i = 0; i < enemies.getCount(); i++) {
+            if (lowest < 0 || enemies.getY(i) > enemies.getY(lowest)) {
+                lowest = i;
+            }
+        }
+        return lowest < 0 ? Game.MAX_X / 2 : enemies.getX(lowest) + enemies.getWidth() / 2;
+    }
+}
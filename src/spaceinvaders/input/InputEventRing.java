@@ -0,0 +1,123 @@
+package spaceinvaders.input;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed size ring of timestamped input events passed from a single
+ * producer, the AWT event thread, to a single consumer, the game thread.
+ * Events are stored field by field in preallocated arrays, so neither
+ * side allocates, and neither side ever waits on the other. If the game
+ * falls so far behind that the ring fills up, new events are dropped and
+ * counted.
+ */
+public class InputEventRing {
+    public static final int DEFAULT_CAPACITY = 256;
+
+    public static final int KEY_PRESSED = 1;
+    public static final int KEY_RELEASED = 2;
+    public static final int KEY_TYPED = 3;
+    public static final int MOUSE_MOVED = 4;
+    public static final int MOUSE_PRESSED = 5;
+    public static final int MOUSE_RELEASED = 6;
+
+    /**
+     * Receives events as the ring is drained
+     */
+    public interface Handler {
+        /**
+         * @param type The kind of event, e.g. {@link #KEY_PRESSED}
+         * @param code The key code, or the key char for {@link #KEY_TYPED}
+         * @param x    The mouse x location, for mouse events
+         * @param y    The mouse y location, for mouse events
+         * @param time When the event was queued (System.nanoTime)
+         */
+        void handleInputEvent(int type, int code, int x, int y, long time);
+    }
+
+    private final int capacity;
+    private final int mask;
+    private final int[] types;
+    private final int[] codes;
+    private final int[] xs;
+    private final int[] ys;
+    private final long[] times;
+
+    /**
+     * The next event to read, only ever written by the consumer
+     */
+    private final AtomicLong head = new AtomicLong();
+    /**
+     * The next slot to write, only ever written by the producer
+     */
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long dropped = 0;
+
+    public InputEventRing() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity The number of events the ring can hold, rounded up to a power of two
+     */
+    public InputEventRing(int capacity) {
+        this.capacity = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.mask = this.capacity - 1;
+        types = new int[this.capacity];
+        codes = new int[this.capacity];
+        xs = new int[this.capacity];
+        ys = new int[this.capacity];
+        times = new long[this.capacity];
+    }
+
+    /**
+     * Queue an event. Producer only.
+     *
+     * @return False if the ring was full and the event was dropped
+     */
+    public boolean offer(int type, int code, int x, int y, long time) {
+        long t = tail.get();
+        if (t - head.get() >= capacity) {
+            dropped++;
+            return false;
+        }
+
+        int i = (int) t & mask;
+        types[i] = type;
+        codes[i] = code;
+        xs[i] = x;
+        ys[i] = y;
+        times[i] = time;
+        // publish the slot only once it is completely written
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Pass every queued event to a handler, oldest first. Consumer only.
+     *
+     * @param handler The handler to receive the events
+     * @return The number of events drained
+     */
+    public int drain(Handler handler) {
+        long h = head.get();
+        long t = tail.get();
+        for (long n = h; n < t; n++) {
+            int i = (int) n & mask;
+            handler.handleInputEvent(types[i], codes[i], xs[i], ys[i], times[i]);
+        }
+        // free the slots only once they have been read
+        head.lazySet(t);
+        return (int) (t - h);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return The number of events dropped because the ring was full
+     */
+    public long getDropped() {
+        return dropped;
+    }
+}
@@ -0,0 +1,99 @@
+package spaceinvaders.input;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes the input events the game applies, and the tick each was applied
+ * on, to a compact binary file. The game runs on a fixed timestep and
+ * input is the only thing that varies between runs, so feeding the same
+ * events back in on the same ticks reproduces the session exactly.
+ * <p>
+ * Every so often the game also records a checkpoint, a digest of its whole
+ * state, so a replay can confirm it is still in step. See
+ * {@link InputRecording} for the file format.
+ */
+public class InputRecorder {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private boolean closed = false;
+
+    public InputRecorder(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        buffer.putInt(InputRecording.MAGIC);
+        buffer.putShort(InputRecording.VERSION);
+    }
+
+    /**
+     * Record an input event applied on a tick
+     */
+    public synchronized void recordEvent(long tick, int type, int code, int x, int y) {
+        if (closed) {
+            return;
+        }
+        ensureSpace(InputRecording.EVENT_SIZE);
+        buffer.putInt((int) tick);
+        buffer.put((byte) type);
+        buffer.putShort((short) code);
+        buffer.putShort((short) x);
+        buffer.putShort((short) y);
+    }
+
+    /**
+     * Record a digest of the game's state at the end of a tick
+     */
+    public synchronized void recordCheckpoint(long tick, long digest) {
+        if (closed) {
+            return;
+        }
+        ensureSpace(InputRecording.CHECKPOINT_SIZE);
+        buffer.putInt((int) tick);
+        buffer.put((byte) InputRecording.CHECKPOINT);
+        buffer.putLong(digest);
+    }
+
+    /**
+     * Mark the end of the recording and close the file
+     *
+     * @param tick   The last tick of the session
+     * @param digest A digest of the game's state at the end of that tick
+     */
+    public synchronized void close(long tick, long digest) throws IOException {
+        if (closed) {
+            return;
+        }
+        ensureSpace(InputRecording.END_SIZE);
+        buffer.putInt((int) tick);
+        buffer.put((byte) InputRecording.END);
+        buffer.putLong(digest);
+        flush();
+        channel.close();
+        closed = true;
+    }
+
+    private void ensureSpace(int bytes) {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            // a broken recording shouldn't take the game down with it
+            System.err.println("Failed to write input recording: " + e.getMessage());
+            closed = true;
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,118 @@
+package spaceinvaders.input;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads back a file written by {@link InputRecorder}, mapped straight into
+ * memory.
+ * <p>
+ * The file is a header (magic, version) followed by records, each starting
+ * with the tick it belongs to and its type:
+ * <ul>
+ * <li>an input event: tick, type (an {@link InputEventRing} type), code, x, y</li>
+ * <li>a checkpoint: tick, {@link #CHECKPOINT}, state digest</li>
+ * <li>the end: tick, {@link #END}, state digest after the last tick</li>
+ * </ul>
+ * All values are big endian.
+ */
+public class InputRecording {
+    public static final int MAGIC = 0x53495250; // "SIRP"
+    public static final short VERSION = 3;
+
+    public static final int CHECKPOINT = 100;
+    public static final int END = 101;
+
+    /**
+     * The tick and type every record starts with
+     */
+    static final int RECORD_HEADER_SIZE = 4 + 1;
+    static final int EVENT_SIZE = RECORD_HEADER_SIZE + 2 + 2 + 2;
+    static final int CHECKPOINT_SIZE = RECORD_HEADER_SIZE + 8;
+    static final int END_SIZE = RECORD_HEADER_SIZE + 8;
+
+    private MappedByteBuffer buffer;
+
+    // the record last read by next()
+    private long tick;
+    private int type;
+    private int code;
+    private int x;
+    private int y;
+    private long digest;
+
+    public InputRecording(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.remaining() < 6 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not an input recording: " + path);
+        }
+        short version = buffer.getShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported input recording version " + version + ": " + path);
+        }
+    }
+
+    /**
+     * @return The tick of the next record without reading it, or -1 if there are none left
+     */
+    public long peekTick() {
+        return buffer.remaining() >= RECORD_HEADER_SIZE ? buffer.getInt(buffer.position()) : -1;
+    }
+
+    /**
+     * @return The type of the next record without reading it, or -1 if there are none left
+     */
+    public int peekType() {
+        return buffer.remaining() >= RECORD_HEADER_SIZE ? buffer.get(buffer.position() + 4) : -1;
+    }
+
+    /**
+     * Read the next record
+     *
+     * @return False if there are no records left
+     */
+    public boolean next() {
+        if (buffer.remaining() < RECORD_HEADER_SIZE) {
+            return false;
+        }
+        tick = buffer.getInt();
+        type = buffer.get();
+        if (type == CHECKPOINT || type == END) {
+            digest = buffer.getLong();
+        } else {
+            code = buffer.getShort() & 0xffff;
+            x = buffer.getShort();
+            y = buffer.getShort();
+        }
+        return true;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public long getDigest() {
+        return digest;
+    }
+}
@@ -0,0 +1,30 @@
+package spaceinvaders.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A bullet fired, and where from.
+ */
+@Name("spaceinvaders.BulletSpawn")
+@Label("Bullet Spawn")
+@Category({"Space Invaders", "Entities"})
+@StackTrace(false)
+public class BulletSpawnEvent extends Event {
+    @Label("X")
+    public int x;
+
+    @Label("Y")
+    public int y;
+
+    @Label("Game Time (ms)")
+    public long gameTime;
+
+    @Label("Bullets")
+    @Description("The number of bullets in flight, including this one")
+    public int bullets;
+}
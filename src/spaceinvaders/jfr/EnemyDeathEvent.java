@@ -0,0 +1,25 @@
+package spaceinvaders.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * An enemy killed by a bullet, and where it was.
+ */
+@Name("spaceinvaders.EnemyDeath")
+@Label("Enemy Death")
+@Category({"Space Invaders", "Entities"})
+@StackTrace(false)
+public class EnemyDeathEvent extends Event {
+    @Label("Tick")
+    public long tick;
+
+    @Label("X")
+    public int x;
+
+    @Label("Y")
+    public int y;
+}
@@ -0,0 +1,25 @@
+package spaceinvaders.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The formation reaching the side of the screen, stepping down and turning round
+ */
+@Name("spaceinvaders.FormationAdvance")
+@Label("Formation Advance")
+@Category({"Space Invaders", "Entities"})
+@StackTrace(false)
+public class FormationAdvanceEvent extends Event {
+    @Label("Bottom Edge Y")
+    public int bottomY;
+
+    @Label("Velocity (px/s)")
+    public double velocity;
+
+    @Label("Enemies")
+    public int enemies;
+}
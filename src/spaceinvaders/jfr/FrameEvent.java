@@ -0,0 +1,29 @@
+package spaceinvaders.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One iteration of the game loop, covering the ticks it ran, the draw and the sleep
+ */
+@Name("spaceinvaders.Frame")
+@Label("Frame")
+@Category({"Space Invaders", "Game Loop"})
+@Description("A single iteration of the game loop")
+@StackTrace(false)
+public class FrameEvent extends Event {
+    @Label("Tick")
+    public long tick;
+
+    @Label("Ticks Run")
+    @Description("The number of ticks run to catch up with real time")
+    public int ticksRun;
+
+    @Label("Dropped Ticks")
+    @Description("The total number of ticks skipped so far for falling too far behind")
+    public long droppedTicks;
+}
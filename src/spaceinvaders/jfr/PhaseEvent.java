@@ -0,0 +1,35 @@
+package spaceinvaders.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One phase of a tick or frame, e.g. moving everything or drawing
+ */
+@Name("spaceinvaders.Phase")
+@Label("Game Loop Phase")
+@Category({"Space Invaders", "Game Loop"})
+@Description("A single phase of the game loop")
+@StackTrace(false)
+public class PhaseEvent extends Event {
+    public static final String MOVE = "move";
+    public static final String COLLISIONS = "collisions";
+    public static final String INPUT = "input";
+    public static final String DRAW = "draw";
+    public static final String SLEEP = "sleep";
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Tick")
+    public long tick;
+
+    public PhaseEvent(String phase, long tick) {
+        this.phase = phase;
+        this.tick = tick;
+    }
+}
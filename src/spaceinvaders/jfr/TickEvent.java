@@ -0,0 +1,35 @@
+package spaceinvaders.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One simulation step. Like the other events in this package it costs next
+ * to nothing unless a flight recording is running, e.g. one started with
+ * {@code -XX:StartFlightRecording=filename=game.jfr}.
+ */
+@Name("spaceinvaders.Tick")
+@Label("Tick")
+@Category({"Space Invaders", "Game Loop"})
+@Description("A single fixed length simulation step")
+@StackTrace(false)
+public class TickEvent extends Event {
+    @Label("Tick")
+    public long tick;
+
+    @Label("Delta (ms)")
+    public long delta;
+
+    @Label("Enemies")
+    public int enemies;
+
+    @Label("Bullets")
+    public int bullets;
+
+    @Label("Collision Pairs Tested")
+    public int pairsTested;
+}
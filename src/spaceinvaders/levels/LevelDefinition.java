@@ -0,0 +1,280 @@
+package spaceinvaders.levels;
+
+import spaceinvaders.EnemyFormation;
+import spaceinvaders.Game;
+import spaceinvaders.entities.Archetype;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * How one wave of enemies is laid out and how it moves, with every enemy's
+ * offset and hit points already worked out so starting the wave is only a
+ * copy into the enemy archetype.
+ * <p>
+ * Level files are plain text. Each line is a setting and its values, and
+ * the line "layout" is followed by one line per row of enemies, with one
+ * character per column: '.' for a gap, or a digit for an enemy's hit
+ * points. Anything after a '#' is a comment, and settings that are left
+ * out keep the defaults in {@link EnemyFormation}.
+ * <pre>
+ * speed 75       # march speed (pixels/sec)
+ * speedup 1.03   # speed multiplier for each enemy killed
+ * advance 10     # how far the formation drops each time it turns (pixels)
+ * gap 50 30      # space between columns and rows (pixels)
+ * origin 100 50  # top left corner of the formation (pixels)
+ * layout
+ * 2222222222
+ * 1111111111
+ * </pre>
+ */
+public class LevelDefinition {
+    private double speed = EnemyFormation.DEFAULT_ENEMY_MOVE_SPEED;
+    private double speedIncrease = EnemyFormation.DEFAULT_ENEMY_MOVE_SPEED_INCREASE;
+    private int advanceY = EnemyFormation.DEFAULT_ENEMY_ADVANCE_Y;
+    private double originX = EnemyFormation.DEFAULT_ENEMY_LEFT_EDGE_X;
+    private double originY = EnemyFormation.DEFAULT_ENEMY_TOP_EDGE_Y;
+
+    /**
+     * Each enemy's offset from the origin and starting hit points
+     */
+    private double[] offsetX;
+    private double[] offsetY;
+    private int[] hp;
+    private int count;
+    /**
+     * The offset of each column and row, in increasing order, and the number of enemies in each
+     */
+    private double[] columnOffsets;
+    private int[] columnCounts;
+    private double[] rowOffsets;
+    private int[] rowCounts;
+
+    /**
+     * A block of enemies with one hit point each, spaced evenly at the default
+     * speeds. Large formations are packed closer together so they still fit
+     * across the screen.
+     *
+     * @param rows          The number of rows of enemies
+     * @param enemiesPerRow The number of enemies in each row
+     */
+    public static LevelDefinition uniform(int rows, int enemiesPerRow) {
+        int[][] layout = new int[rows][enemiesPerRow];
+        for (int[] row : layout) {
+            Arrays.fill(row, 1);
+        }
+        LevelDefinition level = new LevelDefinition();
+        level.build(layout, EnemyFormation.DEFAULT_ENEMY_GAP_X, EnemyFormation.DEFAULT_ENEMY_GAP_Y);
+        return level;
+    }
+
+    /**
+     * Read a level from the lines of its file
+     *
+     * @param name  The name of the file, for error messages
+     * @param lines The lines of the file
+     * @throws IOException If a line can't be understood, or the wave wouldn't be playable
+     */
+    public static LevelDefinition parse(String name, List<String> lines) throws IOException {
+        LevelDefinition level = new LevelDefinition();
+        double gapX = EnemyFormation.DEFAULT_ENEMY_GAP_X;
+        double gapY = EnemyFormation.DEFAULT_ENEMY_GAP_Y;
+        List<int[]> layout = null;
+
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+
+            String where = name + ":" + (i + 1) + ": ";
+            if (layout != null) {
+                layout.add(parseRow(line, where));
+                continue;
+            }
+            String[] words = line.split("\\s+");
+            try {
+                switch (words[0]) {
+                    case "speed":
+                        level.speed = Double.parseDouble(words[1]);
+                        // the formation's direction is kept separately, so a negative speed would march it the wrong way
+                        if (!(level.speed > 0)) {
+                            throw new IOException(where + "speed must be more than 0");
+                        }
+                        break;
+                    case "speedup":
+                        level.speedIncrease = Double.parseDouble(words[1]);
+                        if (!(level.speedIncrease > 0)) {
+                            throw new IOException(where + "speedup must be more than 0");
+                        }
+                        break;
+                    case "advance":
+                        level.advanceY = Integer.parseInt(words[1]);
+                        if (level.advanceY < 0) {
+                            throw new IOException(where + "advance can't be negative");
+                        }
+                        break;
+                    case "gap":
+                        gapX = Double.parseDouble(words[1]);
+                        gapY = Double.parseDouble(words[2]);
+                        if (!(gapX > 0 && gapY > 0)) {
+                            throw new IOException(where + "gaps must be more than 0");
+                        }
+                        break;
+                    case "origin":
+                        level.originX = Double.parseDouble(words[1]);
+                        level.originY = Double.parseDouble(words[2]);
+                        // past half way there's no room left for the formation
+                        if (!(level.originX >= 0 && level.originX < Game.MAX_X / 2
+                                && level.originY >= 0 && level.originY < Game.MAX_Y / 2)) {
+                            throw new IOException(where + "origin must be in the top left quarter of the screen");
+                        }
+                        break;
+                    case "layout":
+                        layout = new ArrayList<>();
+                        break;
+                    default:
+                        throw new IOException(where + "unknown setting " + words[0]);
+                }
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new IOException(where + "bad value for " + words[0]);
+            }
+        }
+
+        if (layout == null || layout.isEmpty()) {
+            throw new IOException(name + ": no layout");
+        }
+        level.build(layout.toArray(new int[0][]), gapX, gapY);
+        if (level.count == 0) {
+            throw new IOException(name + ": no enemies in layout");
+        }
+        return level;
+    }
+
+    private static int[] parseRow(String line, String where) throws IOException {
+        int[] row = new int[line.length()];
+        for (int x = 0; x < line.length(); x++) {
+            char c = line.charAt(x);
+            if (c == '.') {
+                row[x] = 0;
+            } else if (c >= '1' && c <= '9') {
+                row[x] = c - '0';
+            } else {
+                throw new IOException(where + "unexpected '" + c + "' in layout");
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Work out every enemy's offset, shrinking the gaps if needed to fit on screen
+     *
+     * @param layout The hit points of each enemy by row and column, 0 for none
+     */
+    private void build(int[][] layout, double gapX, double gapY) {
+        int columns = 0;
+        for (int[] row : layout) {
+            columns = Math.max(columns, row.length);
+        }
+        gapX = Math.min(gapX, (Game.MAX_X - 2 * originX) / columns);
+        gapY = Math.min(gapY, (Game.MAX_Y / 2 - originY) / layout.length);
+
+        columnOffsets = new double[columns];
+        columnCounts = new int[columns];
+        rowOffsets = new double[layout.length];
+        rowCounts = new int[layout.length];
+        for (int x = 0; x < columns; x++) {
+            columnOffsets[x] = x * gapX;
+        }
+
+        int capacity = layout.length * columns;
+        offsetX = new double[capacity];
+        offsetY = new double[capacity];
+        hp = new int[capacity];
+        for (int row = 0; row < layout.length; row++) {
+            rowOffsets[row] = row * gapY;
+            for (int x = 0; x < layout[row].length; x++) {
+                if (layout[row][x] > 0) {
+                    offsetX[count] = columnOffsets[x];
+                    offsetY[count] = rowOffsets[row];
+                    hp[count] = layout[row][x];
+                    columnCounts[x]++;
+                    rowCounts[row]++;
+                    count++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Add this level's enemies to an archetype
+     *
+     * @param enemies The archetype to add the enemies to
+     */
+    public void spawn(Archetype enemies) {
+        enemies.setOrigin(originX, originY);
+        for (int i = 0; i < count; i++) {
+            enemies.add(offsetX[i], offsetY[i], 0, 0, hp[i]);
+        }
+    }
+
+    /**
+     * @return The speed the formation starts marching at (pixels/sec)
+     */
+    public double getSpeed() {
+        return speed;
+    }
+
+    /**
+     * @return How much the formation speeds up each time an enemy is killed
+     */
+    public double getSpeedIncrease() {
+        return speedIncrease;
+    }
+
+    public int getAdvanceY() {
+        return advanceY;
+    }
+
+    /**
+     * @return The offset from the origin of each column, in increasing order. Not to be changed.
+     */
+    public double[] getColumnOffsets() {
+        return columnOffsets;
+    }
+
+    /**
+     * @return A copy of the number of enemies in each column
+     */
+    public int[] getColumnCounts() {
+        return columnCounts.clone();
+    }
+
+    /**
+     * @return The offset from the origin of each row, in increasing order. Not to be changed.
+     */
+    public double[] getRowOffsets() {
+        return rowOffsets;
+    }
+
+    /**
+     * @return A copy of the number of enemies in each row
+     */
+    public int[] getRowCounts() {
+        return rowCounts.clone();
+    }
+
+    /**
+     * @return The number of enemies in the wave
+     */
+    public int getEnemyCount() {
+        return count;
+    }
+}
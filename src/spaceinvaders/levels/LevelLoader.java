@@ -0,0 +1,110 @@
+package spaceinvaders.levels;
+
+import spaceinvaders.EnemyFormation;
+import spaceinvaders.Resources;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads level files in the background, so the next wave can be read and
+ * built while the current one is being played.
+ * <p>
+ * The levels are listed in order in a manifest, one reference per line.
+ * Once past the last one, the last level is played again.
+ * <p>
+ * Each level file is only read once, and the definitions never change, so
+ * a loader is safe to share between any number of games.
+ */
+public class LevelLoader {
+    /**
+     * The list of every level in the order they're played
+     */
+    public static final String MANIFEST = "levels/manifest.txt";
+
+    private List<String> refs;
+    /**
+     * Levels loaded or being loaded, by reference
+     */
+    private Map<String, CompletableFuture<LevelDefinition>> loading = new ConcurrentHashMap<>();
+    /**
+     * A single thread, that only stays around while there are levels to load
+     */
+    private ExecutorService executor = new ThreadPoolExecutor(0, 1, 1, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+        Thread thread = new Thread(runnable, "Level loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param manifest The reference to the manifest listing the levels
+     */
+    public LevelLoader(String manifest) {
+        refs = readManifest(manifest);
+    }
+
+    /**
+     * Start loading a level in the background, if it isn't already
+     *
+     * @param number The level, starting at 1
+     */
+    public void prepare(int number) {
+        loading.computeIfAbsent(refFor(number), ref -> CompletableFuture.supplyAsync(() -> load(ref), executor));
+    }
+
+    /**
+     * Get a level, waiting for it to load if it hasn't finished yet
+     *
+     * @param number The level, starting at 1
+     * @return The level's definition
+     */
+    public LevelDefinition get(int number) {
+        prepare(number);
+        return loading.get(refFor(number)).join();
+    }
+
+    /**
+     * @return The file a level is read from, or an empty reference for the default formation
+     */
+    private String refFor(int number) {
+        return refs.isEmpty() ? "" : refs.get(Math.min(number, refs.size()) - 1);
+    }
+
+    /**
+     * Read and build a level. A level that can't be read is replaced with the
+     * default formation, so the game can carry on.
+     */
+    private LevelDefinition load(String ref) {
+        if (ref.isEmpty()) {
+            return defaultLevel();
+        }
+        try {
+            return LevelDefinition.parse(ref, Resources.readLines(ref));
+        } catch (IOException e) {
+            System.err.println("Can't load level " + ref + ": " + e.getMessage());
+            return defaultLevel();
+        }
+    }
+
+    private static LevelDefinition defaultLevel() {
+        return LevelDefinition.uniform(EnemyFormation.DEFAULT_ENEMIES_ROWS, EnemyFormation.DEFAULT_ENEMIES_PER_ROW);
+    }
+
+    private static List<String> readManifest(String manifest) {
+        try {
+            return Resources.readManifest(manifest);
+        } catch (IOException e) {
+            System.err.println("Can't read level manifest " + manifest + ", using the default formation");
+            return Collections.emptyList();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package spaceinvaders.render;
+
+/**
+ * The parts of the screen that need redrawing this frame, kept as a short
+ * list of rectangles. A rectangle that overlaps one already in the list is
+ * merged into it. When the list fills up, the region is marked full and
+ * the whole screen should be redrawn.
+ */
+public class DirtyRegion {
+    public static final int MAX_RECTS = 32;
+
+    private int screenWidth;
+    private int screenHeight;
+    /**
+     * x, y, width and height of each rectangle, one after another
+     */
+    private int[] rects = new int[MAX_RECTS * 4];
+    private int count = 0;
+    private boolean full = false;
+
+    public DirtyRegion(int screenWidth, int screenHeight) {
+        this.screenWidth = screenWidth;
+        this.screenHeight = screenHeight;
+    }
+
+    public void clear() {
+        count = 0;
+        full = false;
+    }
+
+    /**
+     * Mark the whole screen as needing a redraw
+     */
+    public void markFull() {
+        full = true;
+    }
+
+    /**
+     * Mark a rectangle as needing a redraw. It is clipped to the screen.
+     */
+    public void add(int x, int y, int width, int height) {
+        if (full) {
+            return;
+        }
+        int x2 = Math.min(x + width, screenWidth);
+        int y2 = Math.min(y + height, screenHeight);
+        x = Math.max(x, 0);
+        y = Math.max(y, 0);
+        if (x >= x2 || y >= y2) {
+            return;
+        }
+
+        for (int i = 0; i < count * 4; i += 4) {
+            int rx = rects[i];
+            int ry = rects[i + 1];
+            int rx2 = rx + rects[i + 2];
+            int ry2 = ry + rects[i + 3];
+            if (x <= rx2 && rx <= x2 && y <= ry2 && ry <= y2) {
+                // overlapping or touching, grow this one to cover both
+                rects[i] = Math.min(x, rx);
+                rects[i + 1] = Math.min(y, ry);
+                rects[i + 2] = Math.max(x2, rx2) - rects[i];
+                rects[i + 3] = Math.max(y2, ry2) - rects[i + 1];
+                return;
+            }
+        }
+
+        if (count == MAX_RECTS) {
+            full = true;
+            return;
+        }
+        int i = count * 4;
+        rects[i] = x;
+        rects[i + 1] = y;
+        rects[i + 2] = x2 - x;
+        rects[i + 3] = y2 - y;
+        count++;
+    }
+
+    /**
+     * @return The total area of the rectangles, counting any overlap between them twice
+     */
+    public long getArea() {
+        if (full) {
+            return (long) screenWidth * screenHeight;
+        }
+        long area = 0;
+        for (int i = 0; i < count * 4; i += 4) {
+            area += (long) rects[i + 2] * rects[i + 3];
+        }
+        return area;
+    }
+
+    public boolean isFull() {
+        return full;
+    }
+
+    public boolean isEmpty() {
+        return !full && count == 0;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getX(int rect) {
+        return rects[rect * 4];
+    }
+
+    public int getY(int rect) {
+        return rects[rect * 4 + 1];
+    }
+
+    public int getWidth(int rect) {
+        return rects[rect * 4 + 2];
+    }
+
+    public int getHeight(int rect) {
+        return rects[rect * 4 + 3];
+    }
+}
@@ -0,0 +1,66 @@
+package spaceinvaders.render;
+
+/**
+ * Where each entity of an archetype is drawn in a frame, in screen pixels.
+ * Comparing one frame's positions with the last tells us what has to be
+ * redrawn.
+ */
+public class DrawnPositions {
+    private int[] x = new int[16];
+    private int[] y = new int[16];
+    private int count = 0;
+
+    /**
+     * Make room for a number of positions, forgetting any already held
+     */
+    public void reset(int count) {
+        if (x.length < count) {
+            x = new int[Math.max(count, x.length * 2)];
+            y = new int[x.length];
+        }
+        this.count = count;
+    }
+
+    public void set(int index, int x, int y) {
+        this.x[index] = x;
+        this.y[index] = y;
+    }
+
+    /**
+     * Add every sprite that isn't drawn in exactly the same place as last frame to a dirty region,
+     * covering both where it was and where it is now
+     *
+     * @param previous The positions drawn last frame
+     * @param width    The width of the sprite drawn at each position
+     * @param height   The height of the sprite drawn at each position
+     * @param dirty    The region to add to
+     */
+    public void markChanged(DrawnPositions previous, int width, int height, DirtyRegion dirty) {
+        int common = Math.min(count, previous.count);
+        for (int i = 0; i < common && !dirty.isFull(); i++) {
+            if (x[i] != previous.x[i] || y[i] != previous.y[i]) {
+                dirty.add(previous.x[i], previous.y[i], width, height);
+                dirty.add(x[i], y[i], width, height);
+            }
+        }
+        // entities that were added or removed since last frame
+        for (int i = common; i < previous.count && !dirty.isFull(); i++) {
+            dirty.add(previous.x[i], previous.y[i], width, height);
+        }
+        for (int i = common; i < count && !dirty.isFull(); i++) {
+            dirty.add(x[i], y[i], width, height);
+        }
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getX(int index) {
+        return x[index];
+    }
+
+    public int getY(int index) {
+        return y[index];
+    }
+}
@@ -0,0 +1,78 @@
+package spaceinvaders.render;
+
+import spaceinvaders.entities.EntityStore;
+import spaceinvaders.sprites.SpriteStore;
+
+/**
+ * Everything needed to draw one frame, copied out of the game so it can be
+ * drawn on another thread while the simulation carries on. Snapshots are
+ * reused from frame to frame, so capturing one only allocates when the
+ * number of entities outgrows it.
+ */
+public class FrameSnapshot {
+    private EntityStore entities;
+    private String message = "";
+    private boolean waitingForKeyPress = true;
+    private long score = 0;
+    private long tick = -1;
+    /**
+     * When the snapshot was captured (System.nanoTime)
+     */
+    private long captureTime;
+
+    /**
+     * @param sprites The store the game's sprites come from
+     */
+    public FrameSnapshot(SpriteStore sprites) {
+        entities = new EntityStore(sprites);
+    }
+
+    /**
+     * Copy the state of the game into this snapshot
+     *
+     * @param source             The entities to copy
+     * @param message            The message to display while waiting for a key press
+     * @param waitingForKeyPress True if the game is waiting for a key press
+     * @param score              The player's score
+     * @param tick               The tick the snapshot was taken at
+     */
+    public void capture(EntityStore source, String message, boolean waitingForKeyPress, long score, long tick) {
+        source.copyPositionsTo(entities);
+        this.message = message;
+        this.waitingForKeyPress = waitingForKeyPress;
+        this.score = score;
+        this.tick = tick;
+        this.captureTime = System.nanoTime();
+    }
+
+    /**
+     * @return True if anything has been captured into this snapshot yet
+     */
+    public boolean isCaptured() {
+        return tick >= 0;
+    }
+
+    public EntityStore getEntities() {
+        return entities;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public boolean isWaitingForKeyPress() {
+        return waitingForKeyPress;
+    }
+
+    public long getScore() {
+        return score;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public long getCaptureTime() {
+        return captureTime;
+    }
+}
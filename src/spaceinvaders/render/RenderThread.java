@@ -0,0 +1,75 @@
+package spaceinvaders.render;
+
+import spaceinvaders.Game;
+import spaceinvaders.GameView;
+import spaceinvaders.entities.EntityStore;
+import spaceinvaders.sprites.SpriteStore;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Draws the game on its own thread, so a slow flip of the screen never
+ * holds up the simulation. The game thread publishes a snapshot after each
+ * batch of ticks through a {@link TripleBuffer}, and this thread draws the
+ * latest one, interpolating by how long ago it was taken.
+ */
+public class RenderThread extends Thread {
+    private GameView gameView;
+    private TripleBuffer<FrameSnapshot> snapshots;
+    private volatile boolean running = true;
+    private volatile long framesDrawn = 0;
+
+    /**
+     * @param gameView The view to draw on
+     * @param sprites  The store the game's sprites come from
+     */
+    public RenderThread(GameView gameView, SpriteStore sprites) {
+        super("Render");
+        setDaemon(true);
+        this.gameView = gameView;
+        this.snapshots = new TripleBuffer<>(new FrameSnapshot(sprites), new FrameSnapshot(sprites),
+                new FrameSnapshot(sprites));
+    }
+
+    /**
+     * Capture the state of the game and hand it to the render thread. Game thread only.
+     *
+     * @param entities           The entities to draw
+     * @param message            The message to display while waiting for a key press
+     * @param waitingForKeyPress True if the game is waiting for a key press
+     * @param score              The player's score
+     * @param tick               The tick the state is from
+     */
+    public void publish(EntityStore entities, String message, boolean waitingForKeyPress, long score, long tick) {
+        snapshots.getBack().capture(entities, message, waitingForKeyPress, score, tick);
+        snapshots.publish();
+    }
+
+    public void run() {
+        while (running) {
+            long frameStart = System.nanoTime();
+
+            FrameSnapshot snapshot = snapshots.acquire();
+            if (snapshot.isCaptured()) {
+                // the snapshot holds where everything was at the start and end of its tick,
+                // so draw as far along that as the time since it was taken
+                double alpha = Math.min(1.0, (double) (frameStart - snapshot.getCaptureTime()) / Game.TICK_NANOS);
+                gameView.drawSnapshot(snapshot, alpha);
+                framesDrawn++;
+            }
+
+            long remaining = Game.FRAME_NANOS - (System.nanoTime() - frameStart);
+            if (remaining > 0) {
+                LockSupport.parkNanos(remaining);
+            }
+        }
+    }
+
+    public void shutdown() {
+        running = false;
+    }
+
+    public long getFramesDrawn() {
+        return framesDrawn;
+    }
+}
@@ -0,0 +1,144 @@
+package spaceinvaders.render;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Draws text from images rendered once per string, so laying out and
+ * rasterising the glyphs isn't repeated every frame. Each string's width
+ * is kept with its image, so positioning text doesn't measure it either.
+ * Numbers are drawn a digit at a time from a cached image per digit, so a
+ * changing score doesn't fill the cache with every value it passes through.
+ * <p>
+ * Not thread safe, it should only be used by whichever thread is drawing.
+ */
+public class TextCache {
+    private Font font;
+    private Color color;
+    /**
+     * The configuration images should be compatible with, or null for plain buffered images
+     */
+    private GraphicsConfiguration configuration;
+    private FontMetrics metrics;
+    private Map<String, CachedText> texts = new HashMap<>();
+    private Image[] digits = new Image[10];
+    private int digitWidth;
+    /**
+     * Scratch space for the digits of the number being drawn
+     */
+    private int[] digitBuffer = new int[20];
+
+    public TextCache(Font font, Color color, GraphicsConfiguration configuration) {
+        this.font = font;
+        this.color = color;
+        this.configuration = configuration;
+
+        Graphics2D g = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+        metrics = g.getFontMetrics(font);
+        g.dispose();
+
+        for (int i = 0; i < digits.length; i++) {
+            digits[i] = render(String.valueOf(i));
+            digitWidth = Math.max(digitWidth, metrics.charWidth('0' + i));
+        }
+    }
+
+    /**
+     * Draw a string with its baseline at the given location
+     */
+    public void draw(Graphics g, String text, int x, int y) {
+        g.drawImage(lookup(text).image, x, y - metrics.getAscent(), null);
+    }
+
+    /**
+     * Draw a string centred on a point, with its baseline at the given height
+     */
+    public void drawCentred(Graphics g, String text, int centreX, int y) {
+        CachedText cached = lookup(text);
+        g.drawImage(cached.image, (2 * centreX - cached.width) / 2, y - metrics.getAscent(), null);
+    }
+
+    /**
+     * Draw a whole number with its baseline at the given location, every digit taking the same width
+     *
+     * @return The width drawn
+     */
+    public int drawNumber(Graphics g, long value, int x, int y) {
+        int count = 0;
+        long remaining = Math.abs(value);
+        do {
+            digitBuffer[count++] = (int) (remaining % 10);
+            remaining /= 10;
+        } while (remaining > 0);
+
+        int top = y - metrics.getAscent();
+        for (int i = count - 1; i >= 0; i--) {
+            g.drawImage(digits[digitBuffer[i]], x + (count - 1 - i) * digitWidth, top, null);
+        }
+        return count * digitWidth;
+    }
+
+    /**
+     * Forget the image for a string that's no longer shown
+     */
+    public void remove(String text) {
+        CachedText cached = texts.remove(text);
+        if (cached != null) {
+            cached.image.flush();
+        }
+    }
+
+    /**
+     * @return The width of a string, measured once when it's first drawn or asked about
+     */
+    public int getWidth(String text) {
+        return lookup(text).width;
+    }
+
+    public int getHeight() {
+        return metrics.getHeight();
+    }
+
+    public Font getFont() {
+        return font;
+    }
+
+    private CachedText lookup(String text) {
+        CachedText cached = texts.get(text);
+        if (cached == null) {
+            cached = new CachedText(render(text), metrics.stringWidth(text));
+            texts.put(text, cached);
+        }
+        return cached;
+    }
+
+    private Image render(String text) {
+        int width = Math.max(1, metrics.stringWidth(text));
+        int height = metrics.getAscent() + metrics.getDescent();
+        Image image = configuration != null
+                ? configuration.createCompatibleImage(width, height, Transparency.TRANSLUCENT)
+                : new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+
+        Graphics2D g = (Graphics2D) image.getGraphics();
+        g.setFont(font);
+        g.setColor(color);
+        g.drawString(text, 0, metrics.getAscent());
+        g.dispose();
+        return image;
+    }
+
+    /**
+     * A string's image and its width, measured once
+     */
+    private static class CachedText {
+        private Image image;
+        private int width;
+
+        CachedText(Image image, int width) {
+            this.image = image;
+            this.width = width;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package spaceinvaders.render;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands values from one producer thread to one consumer thread without
+ * either ever waiting on the other. The producer fills its back buffer and
+ * publishes it by swapping it with the middle buffer; the consumer swaps
+ * its front buffer with the middle one whenever something new has been
+ * published. Each side only ever touches its own buffer, so the consumer
+ * always sees a complete value, and the buffers are reused rather than
+ * allocated.
+ *
+ * @param <T> The type of value being handed over
+ */
+public class TripleBuffer<T> {
+    private static final int INDEX_MASK = 3;
+    /**
+     * Set on the middle index when it holds something the consumer hasn't seen yet
+     */
+    private static final int FRESH = 4;
+
+    private final Object[] buffers;
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private int back = 0;
+    private int front = 2;
+
+    public TripleBuffer(T first, T second, T third) {
+        buffers = new Object[]{first, second, third};
+    }
+
+    /**
+     * @return The buffer the producer should fill next
+     */
+    @SuppressWarnings("unchecked")
+    public T getBack() {
+        return (T) buffers[back];
+    }
+
+    /**
+     * Hand the filled back buffer to the consumer, taking the middle one in exchange. Producer only.
+     */
+    public void publish() {
+        back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+    }
+
+    /**
+     * Get the most recently published buffer. If nothing has been published
+     * since the last call the same buffer is returned again. Consumer only.
+     *
+     * @return The latest buffer
+     */
+    @SuppressWarnings("unchecked")
+    public T acquire() {
+        if ((middle.get() & FRESH) != 0) {
+            front = middle.getAndSet(front) & INDEX_MASK;
+        }
+        return (T) buffers[front];
+    }
+}
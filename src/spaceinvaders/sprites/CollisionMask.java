@@ -0,0 +1,110 @@
+package spaceinvaders.sprites;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * The opaque pixels of a sprite packed into bits, one row after another,
+ * so two sprites can be tested for a pixel perfect overlap 64 pixels at a
+ * time.
+ */
+public class CollisionMask {
+    private int width;
+    private int height;
+    private int wordsPerRow;
+    /**
+     * Bit x of a row is column x of the sprite, starting from the least significant bit of the row's first word
+     */
+    private long[] bits;
+
+    public CollisionMask(int width, int height, long[] bits) {
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = (width + 63) >>> 6;
+        this.bits = bits;
+    }
+
+    /**
+     * Build a mask from the transparency of an image. Any pixel that isn't
+     * fully transparent counts as solid.
+     *
+     * @param image The image to build the mask from
+     * @return The mask of the image's opaque pixels
+     */
+    public static CollisionMask fromImage(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int wordsPerRow = (width + 63) >>> 6;
+        long[] bits = new long[wordsPerRow * height];
+
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            for (int x = 0; x < width; x++) {
+                if ((row[x] >>> 24) != 0) {
+                    bits[y * wordsPerRow + (x >>> 6)] |= 1L << (x & 63);
+                }
+            }
+        }
+        return new CollisionMask(width, height, bits);
+    }
+
+    /**
+     * Check if two masks overlap. The bounding boxes are compared first, and
+     * only if they intersect are the rows within the intersection compared.
+     *
+     * @param a  The first mask
+     * @param ax The x location of the first mask
+     * @param ay The y location of the first mask
+     * @param b  The second mask
+     * @param bx The x location of the second mask
+     * @param by The y location of the second mask
+     * @return True if an opaque pixel of one lands on an opaque pixel of the other
+     */
+    public static boolean overlaps(CollisionMask a, int ax, int ay, CollisionMask b, int bx, int by) {
+        int left = Math.max(ax, bx);
+        int right = Math.min(ax + a.width, bx + b.width);
+        int top = Math.max(ay, by);
+        int bottom = Math.min(ay + a.height, by + b.height);
+        if (left >= right || top >= bottom) {
+            return false;
+        }
+
+        int overlapWidth = right - left;
+        for (int y = top; y < bottom; y++) {
+            int aRow = (y - ay) * a.wordsPerRow;
+            int bRow = (y - by) * b.wordsPerRow;
+            for (int x = 0; x < overlapWidth; x += 64) {
+                long overlap = a.bitsAt(aRow, left - ax + x) & b.bitsAt(bRow, left - bx + x);
+                int remaining = overlapWidth - x;
+                if (remaining < 64) {
+                    overlap &= (1L << remaining) - 1;
+                }
+                if (overlap != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Read the 64 bits of a row starting at a column, which may straddle two words
+     */
+    private long bitsAt(int row, int column) {
+        int word = column >>> 6;
+        int shift = column & 63;
+        long value = bits[row + word] >>> shift;
+        if (shift != 0 && word + 1 < wordsPerRow) {
+            value |= bits[row + word + 1] << (64 - shift);
+        }
+        return value;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
@@ -0,0 +1,190 @@
+package spaceinvaders.sprites;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * A thread safe cache that loads values on demand and keeps their total
+ * size within a byte budget. Once over budget, it evicts the least recently
+ * used values until it fits again. An evicted value is loaded again the
+ * next time it's asked for.
+ * <p>
+ * Only one thread loads any given key at a time. Others asking for the
+ * same key wait for that load rather than starting their own, while keys
+ * that are already cached can still be fetched meanwhile.
+ * <p>
+ * Values are evicted while the cache is locked, so the eviction listener
+ * finishes before anyone can load the key again. The listener must not
+ * call back into the cache.
+ *
+ * @param <K> The type of key
+ * @param <V> The type of value cached
+ */
+public class LruCache<K, V> {
+    private Function<K, V> loader;
+    private ToLongFunction<V> weigher;
+    private BiConsumer<K, V> evictionListener;
+    private long budget;
+
+    /**
+     * The cached values, least recently used first
+     */
+    private LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private Map<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+    private long bytes = 0;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    /**
+     * @param budget           The most bytes to keep cached. The last value loaded is always kept, even if it's bigger.
+     * @param loader           Loads the value for a key that isn't cached
+     * @param weigher          The size of a value in bytes
+     * @param evictionListener Told about each value evicted, e.g. to free what it holds, with the cache locked
+     */
+    public LruCache(long budget, Function<K, V> loader, ToLongFunction<V> weigher, BiConsumer<K, V> evictionListener) {
+        this.budget = budget;
+        this.loader = loader;
+        this.weigher = weigher;
+        this.evictionListener = evictionListener;
+    }
+
+    /**
+     * Get the value for a key, loading it if it isn't cached
+     */
+    public V get(K key) {
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                hits++;
+                return entry.value;
+            }
+            misses++;
+        }
+
+        CompletableFuture<V> load = new CompletableFuture<>();
+        CompletableFuture<V> existing = loading.putIfAbsent(key, load);
+        if (existing != null) {
+            return existing.join();
+        }
+        try {
+            // someone may have finished loading it between our miss and now
+            V value;
+            synchronized (this) {
+                Entry<V> entry = entries.get(key);
+                value = entry != null ? entry.value : null;
+            }
+            if (value == null) {
+                value = loader.apply(key);
+                put(key, value);
+            }
+            load.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, load);
+        }
+    }
+
+    private synchronized void put(K key, V value) {
+        Entry<V> entry = new Entry<>(value, weigher.applyAsLong(value));
+        entries.put(key, entry);
+        bytes += entry.bytes;
+
+        List<Map.Entry<K, Entry<V>>> evicted = new ArrayList<>();
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        while (bytes > budget && eldest.hasNext()) {
+            Map.Entry<K, Entry<V>> candidate = eldest.next();
+            if (candidate.getKey().equals(key)) {
+                continue;
+            }
+            eldest.remove();
+            bytes -= candidate.getValue().bytes;
+            evictions++;
+            evicted.add(candidate);
+        }
+        // still holding the lock, so a key can't be loaded again until its old value is freed
+        for (Map.Entry<K, Entry<V>> candidate : evicted) {
+            evictionListener.accept(candidate.getKey(), candidate.getValue().value);
+        }
+    }
+
+    /**
+     * Drop a key if it still holds the given value, e.g. because the value is
+     * no longer usable, so the next get loads it again. The eviction listener
+     * isn't told.
+     *
+     * @return True if the key was removed
+     */
+    public synchronized boolean remove(K key, V value) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null || entry.value != value) {
+            return false;
+        }
+        entries.remove(key);
+        bytes -= entry.bytes;
+        return true;
+    }
+
+    /**
+     * @return The cached keys and values, least recently used first
+     */
+    public synchronized List<Map.Entry<K, V>> snapshot() {
+        List<Map.Entry<K, V>> snapshot = new ArrayList<>(entries.size());
+        for (Map.Entry<K, Entry<V>> entry : entries.entrySet()) {
+            snapshot.add(Map.entry(entry.getKey(), entry.getValue().value));
+        }
+        return snapshot;
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public long getBudget() {
+        return budget;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized String toString() {
+        return "cache: entries=" + entries.size() + " bytes=" + bytes
+                + (budget == Long.MAX_VALUE ? "" : "/" + budget)
+                + " hits=" + hits + " misses=" + misses + " evictions=" + evictions;
+    }
+
+    private static class Entry<V> {
+        private V value;
+        private long bytes;
+
+        Entry(V value, long bytes) {
+            this.value = value;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -8,22 +8,98 @@ import java.awt.*;
  * not the location. This allows us to use a single sprite in
  * lots of different places without having to store multiple
  * copies of the image.
+ * <p>
+ * The image itself is a region of the shared {@link SpriteAtlas}.
  *
  * @author Original code base - Kevin Glass, refactors - Andrew Lem
  */
 public class Sprite {
     /**
-     * The image to be drawn for this sprite
+     * The atlas holding the image to be drawn for this sprite
      */
-    private Image image;
+    private SpriteAtlas atlas;
+    /**
+     * The region of the atlas this sprite occupies
+     */
+    private int atlasX;
+    private int atlasY;
+    private int width;
+    private int height;
+    /**
+     * The opaque pixels of this sprite, for pixel perfect collisions
+     */
+    private CollisionMask collisionMask;
+    /**
+     * The store that loaded this sprite and the reference it was loaded from, or null if it wasn't
+     */
+    private SpriteStore store;
+    private String ref;
+    /**
+     * False once the store has evicted this sprite and given its region of the atlas to another
+     */
+    private volatile boolean resident = true;
+
+    /**
+     * Create a new sprite based on a region of an atlas
+     *
+     * @param atlas  The atlas holding the image
+     * @param atlasX The left edge of the region
+     * @param atlasY The top edge of the region
+     * @param width  The width of the region
+     * @param height The height of the region
+     * @param collisionMask The opaque pixels of the region
+     */
+    public Sprite(SpriteAtlas atlas, int atlasX, int atlasY, int width, int height, CollisionMask collisionMask) {
+        this.atlas = atlas;
+        this.atlasX = atlasX;
+        this.atlasY = atlasY;
+        this.width = width;
+        this.height = height;
+        this.collisionMask = collisionMask;
+    }
 
     /**
-     * Create a new sprite based on an image
+     * Create a sprite for a store to load into
      *
-     * @param image The image that is this sprite
+     * @param store The store that will load the image
+     * @param ref   The reference to the image
      */
-    public Sprite(Image image) {
-        this.image = image;
+    Sprite(SpriteStore store, String ref) {
+        this.store = store;
+        this.ref = ref;
+        this.resident = false;
+    }
+
+    /**
+     * Point this sprite at the region of an atlas its image has been packed into
+     */
+    void place(SpriteAtlas atlas, int atlasX, int atlasY, int width, int height, CollisionMask collisionMask) {
+        this.atlas = atlas;
+        this.atlasX = atlasX;
+        this.atlasY = atlasY;
+        this.width = width;
+        this.height = height;
+        this.collisionMask = collisionMask;
+        this.resident = true;
+    }
+
+    /**
+     * Note that the region this sprite occupied may now hold another
+     */
+    void evict() {
+        resident = false;
+    }
+
+    public boolean isResident() {
+        return resident;
+    }
+
+    int getAtlasX() {
+        return atlasX;
+    }
+
+    int getAtlasY() {
+        return atlasY;
     }
 
     /**
@@ -32,7 +108,7 @@ public class Sprite {
      * @return The width in pixels of this sprite
      */
     public int getWidth() {
-        return image.getWidth(null);
+        return width;
     }
 
     /**
@@ -41,7 +117,22 @@ public class Sprite {
      * @return The height in pixels of this sprite
      */
     public int getHeight() {
-        return image.getHeight(null);
+        return height;
+    }
+
+    public CollisionMask getCollisionMask() {
+        return collisionMask;
+    }
+
+    public SpriteAtlas getAtlas() {
+        return atlas;
+    }
+
+    /**
+     * @return True if this sprite is drawn from an image held in video memory
+     */
+    public boolean isAccelerated() {
+        return atlas.isAccelerated();
     }
 
     /**
@@ -52,6 +143,11 @@ public class Sprite {
      * @param y The y location at which to draw the sprite
      */
     public void draw(Graphics g, int x, int y) {
-        g.drawImage(image, x, y, null);
+        // an evicted sprite is still in use, so have the store load it back in
+        if (!resident && store != null) {
+            store.getSprite(ref);
+        }
+        g.drawImage(atlas.getImage(), x, y, x + width, y + height,
+                atlasX, atlasY, atlasX + width, atlasY + height, null);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,284 @@
+package spaceinvaders.sprites;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A single accelerated image that every sprite is packed into. Drawing all
+ * sprites from one source surface saves the driver switching textures
+ * between each blit.
+ * <p>
+ * Sprites are packed left to right into shelves as tall as the tallest
+ * sprite on them. When the atlas fills up it doubles in height and the
+ * existing sprites are copied across, so sprites must always fetch the
+ * image through {@link #getImage()} rather than keep hold of it. The
+ * region of a sprite that is freed goes on a list, and is reused by the
+ * next sprite it's big enough for before any new space is taken.
+ * <p>
+ * Optionally the atlas can be drawn from a {@link VolatileImage}, which lives
+ * in video memory for certain rather than wherever Java2D decides to cache
+ * it. The volatile copy can be lost at any time, e.g. when the display mode
+ * changes, so it is checked once a frame with {@link #validate()} and
+ * restored from the packed master image when needed.
+ */
+public class SpriteAtlas {
+    public static final int DEFAULT_WIDTH = 256;
+    public static final int DEFAULT_HEIGHT = 64;
+    /**
+     * The transparent gap left around each sprite so filtering never bleeds into its neighbours
+     */
+    private static final int PADDING = 1;
+
+    /**
+     * The packed sprites. Always kept, as it is what the volatile copy is restored from.
+     */
+    private Image image;
+    private VolatileImage volatileImage;
+    private boolean useVolatile;
+    private long restoreCount = 0;
+    private int width;
+    private int height;
+
+    private int shelfX = 0;
+    private int shelfY = 0;
+    private int shelfHeight = 0;
+    /**
+     * Regions given back by freed sprites, each x, y, width and height
+     */
+    private List<int[]> freeRegions = new ArrayList<>();
+
+    public SpriteAtlas() {
+        this(DEFAULT_WIDTH, DEFAULT_HEIGHT, false);
+    }
+
+    /**
+     * @param width       The initial width of the atlas
+     * @param height      The initial height of the atlas
+     * @param useVolatile True if sprites should be drawn from a volatile image. Ignored with no display.
+     */
+    public SpriteAtlas(int width, int height, boolean useVolatile) {
+        this.width = width;
+        this.height = height;
+        this.useVolatile = useVolatile && !GraphicsEnvironment.isHeadless();
+        image = createImage(width, height);
+    }
+
+    /**
+     * Copy an image into the atlas
+     *
+     * @param source        The image to pack
+     * @param collisionMask The opaque pixels of the image
+     * @return A sprite drawing the packed region
+     */
+    public Sprite pack(BufferedImage source, CollisionMask collisionMask) {
+        Sprite sprite = new Sprite(this, 0, 0, 0, 0, collisionMask);
+        pack(source, collisionMask, sprite);
+        return sprite;
+    }
+
+    /**
+     * Copy an image into the atlas, pointing an existing sprite at it
+     *
+     * @param source        The image to pack
+     * @param collisionMask The opaque pixels of the image
+     * @param sprite        The sprite to draw the packed region
+     */
+    public void pack(BufferedImage source, CollisionMask collisionMask, Sprite sprite) {
+        int w = source.getWidth();
+        int h = source.getHeight();
+
+        int[] region = takeFreeRegion(w, h);
+        int x;
+        int y;
+        if (region != null) {
+            x = region[0];
+            y = region[1];
+        } else {
+            // make the atlas wide enough for the sprite, then start a new shelf if this one is full
+            while (w + PADDING > width) {
+                resize(width * 2, height);
+            }
+            if (shelfX + w + PADDING > width) {
+                shelfX = 0;
+                shelfY += shelfHeight;
+                shelfHeight = 0;
+            }
+            while (shelfY + h + PADDING > height) {
+                resize(width, height * 2);
+            }
+
+            x = shelfX;
+            y = shelfY;
+            shelfX += w + PADDING;
+            shelfHeight = Math.max(shelfHeight, h + PADDING);
+        }
+
+        Graphics g = image.getGraphics();
+        g.drawImage(source, x, y, null);
+        g.dispose();
+
+        // the volatile copy no longer matches, rebuild it on the next validate
+        volatileImage = null;
+
+        sprite.place(this, x, y, w, h, collisionMask);
+    }
+
+    /**
+     * Give a sprite's region back to be reused. The sprite mustn't be drawn until it's packed again.
+     *
+     * @param sprite The sprite to free
+     */
+    public void free(Sprite sprite) {
+        int w = sprite.getWidth() + PADDING;
+        int h = sprite.getHeight() + PADDING;
+        Graphics2D g = (Graphics2D) image.getGraphics();
+        g.setComposite(AlphaComposite.Clear);
+        g.fillRect(sprite.getAtlasX(), sprite.getAtlasY(), w, h);
+        g.dispose();
+        volatileImage = null;
+
+        sprite.evict();
+        freeRegions.add(new int[]{sprite.getAtlasX(), sprite.getAtlasY(), w, h});
+    }
+
+    /**
+     * Find the first freed region big enough for a sprite, splitting off what it doesn't need
+     *
+     * @return The x and y of the region, or null if none fits
+     */
+    private int[] takeFreeRegion(int w, int h) {
+        w += PADDING;
+        h += PADDING;
+        for (int i = 0; i < freeRegions.size(); i++) {
+            int[] region = freeRegions.get(i);
+            if (region[2] >= w && region[3] >= h) {
+                freeRegions.remove(i);
+                // what's left to the right and below stays free
+                if (region[2] > w) {
+                    freeRegions.add(new int[]{region[0] + w, region[1], region[2] - w, h});
+                }
+                if (region[3] > h) {
+                    freeRegions.add(new int[]{region[0], region[1] + h, region[2], region[3] - h});
+                }
+                return region;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Make sure the volatile copy of the atlas is ready to draw from. Should be
+     * called before each frame is drawn, and again before redrawing a frame
+     * that {@link #contentsLost()} says came out wrong.
+     */
+    public void validate() {
+        if (!useVolatile) {
+            return;
+        }
+
+        GraphicsConfiguration gc = getConfiguration();
+        if (volatileImage == null) {
+            volatileImage = gc.createCompatibleVolatileImage(width, height, Transparency.BITMASK);
+            restore();
+            return;
+        }
+
+        int status = volatileImage.validate(gc);
+        if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+            // e.g. the window moved to another screen, start again with a new surface
+            volatileImage.flush();
+            volatileImage = gc.createCompatibleVolatileImage(width, height, Transparency.BITMASK);
+            restore();
+            restoreCount++;
+        } else if (status == VolatileImage.IMAGE_RESTORED) {
+            restore();
+            restoreCount++;
+        }
+    }
+
+    /**
+     * @return True if the surface was lost since the last validate, so the frame drawn from it may be wrong
+     */
+    public boolean contentsLost() {
+        return volatileImage != null && volatileImage.contentsLost();
+    }
+
+    /**
+     * Copy the packed sprites into the volatile image, clearing whatever was there
+     */
+    private void restore() {
+        Graphics2D g = volatileImage.createGraphics();
+        g.setComposite(AlphaComposite.Src);
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+    }
+
+    /**
+     * @return The image sprites should be drawn from
+     */
+    public Image getImage() {
+        return volatileImage != null ? volatileImage : image;
+    }
+
+    /**
+     * @return True if the image sprites are drawn from is held in video memory
+     */
+    public boolean isAccelerated() {
+        if (GraphicsEnvironment.isHeadless()) {
+            return false;
+        }
+        return getImage().getCapabilities(getConfiguration()).isAccelerated();
+    }
+
+    public boolean isVolatile() {
+        return useVolatile;
+    }
+
+    /**
+     * @return The number of times the volatile image had to be restored after being lost
+     */
+    public long getRestoreCount() {
+        return restoreCount;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    private void resize(int newWidth, int newHeight) {
+        Image resized = createImage(newWidth, newHeight);
+        Graphics g = resized.getGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+
+        image = resized;
+        width = newWidth;
+        height = newHeight;
+        if (volatileImage != null) {
+            volatileImage.flush();
+            volatileImage = null;
+        }
+    }
+
+    /**
+     * Create an accelerated image to pack into. With no display there is
+     * nothing to be compatible with, so fall back to a plain image.
+     */
+    private static Image createImage(int width, int height) {
+        if (GraphicsEnvironment.isHeadless()) {
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        }
+        return getConfiguration().createCompatibleImage(width, height, Transparency.BITMASK);
+    }
+
+    private static GraphicsConfiguration getConfiguration() {
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+    }
+}
@@ -0,0 +1,155 @@
+package spaceinvaders.sprites;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A single file holding every sprite already decoded to ARGB pixels, so
+ * they can be copied straight into images with no GIF decoding. Written
+ * offline by {@link SpritePacker}, and read by mapping the file into memory.
+ * <p>
+ * The file is a header (magic, version, sprite count) followed by each
+ * sprite: its reference (a short length then UTF-8 bytes), width, height
+ * and then width * height ARGB ints, row by row. All values are big endian.
+ */
+public class SpritePack {
+    public static final int MAGIC = 0x5349504b; // "SIPK"
+    public static final short VERSION = 1;
+
+    private MappedByteBuffer buffer;
+    /**
+     * Where each sprite's width is in the file, by reference
+     */
+    private Map<String, Integer> offsets = new HashMap<>();
+
+    private SpritePack(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Map a pack file into memory and index the sprites in it
+     *
+     * @throws IOException If the file isn't a pack, or is cut short or corrupt
+     */
+    public static SpritePack open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.remaining() < 10 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a sprite pack: " + path);
+        }
+        short version = buffer.getShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported sprite pack version " + version + ": " + path);
+        }
+
+        SpritePack pack = new SpritePack(buffer);
+        int count = buffer.getInt();
+        if (count < 0) {
+            throw new IOException("Corrupt sprite pack, " + count + " sprites: " + path);
+        }
+        for (int i = 0; i < count; i++) {
+            require(buffer, 2, path);
+            byte[] ref = new byte[buffer.getShort() & 0xffff];
+            require(buffer, ref.length + 8, path);
+            buffer.get(ref);
+            pack.offsets.put(new String(ref, StandardCharsets.UTF_8), buffer.position());
+            int width = buffer.getInt();
+            int height = buffer.getInt();
+            if (width <= 0 || height <= 0) {
+                throw new IOException("Corrupt sprite pack, sprite " + i + " is " + width + "x" + height + ": " + path);
+            }
+            long pixelBytes = (long) width * height * 4;
+            require(buffer, pixelBytes, path);
+            buffer.position(buffer.position() + (int) pixelBytes);
+        }
+        return pack;
+    }
+
+    /**
+     * Check there are at least a number of bytes left to read, so a pack cut short is caught before it's read past
+     */
+    private static void require(ByteBuffer buffer, long bytes, Path path) throws IOException {
+        if (buffer.remaining() < bytes) {
+            throw new IOException("Sprite pack cut short: " + path);
+        }
+    }
+
+    /**
+     * Write sprites to a pack file
+     *
+     * @param path   The file to write
+     * @param refs   The reference of each sprite
+     * @param images The image for each reference
+     */
+    public static void write(Path path, List<String> refs, List<BufferedImage> images) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(10);
+            header.putInt(MAGIC).putShort(VERSION).putInt(refs.size()).flip();
+            writeFully(channel, header);
+
+            for (int i = 0; i < refs.size(); i++) {
+                byte[] ref = refs.get(i).getBytes(StandardCharsets.UTF_8);
+                BufferedImage image = images.get(i);
+                int width = image.getWidth();
+                int height = image.getHeight();
+
+                ByteBuffer sprite = ByteBuffer.allocate(2 + ref.length + 8 + width * height * 4);
+                sprite.putShort((short) ref.length).put(ref).putInt(width).putInt(height);
+                sprite.asIntBuffer().put(image.getRGB(0, 0, width, height, null, 0, width));
+                sprite.position(sprite.capacity());
+                sprite.flip();
+                writeFully(channel, sprite);
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    public boolean contains(String ref) {
+        return offsets.containsKey(ref);
+    }
+
+    /**
+     * Copy a sprite's pixels out of the pack into a new image. Safe to call from any thread.
+     *
+     * @param ref The reference of the sprite
+     * @return The sprite's image, or null if it isn't in the pack
+     */
+    public BufferedImage read(String ref) {
+        Integer offset = offsets.get(ref);
+        if (offset == null) {
+            return null;
+        }
+        // a view of our own, so threads reading different sprites don't share a position
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        int width = view.getInt();
+        int height = view.getInt();
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        view.asIntBuffer().get(pixels);
+        return image;
+    }
+
+    public int size() {
+        return offsets.size();
+    }
+}
@@ -0,0 +1,45 @@
+package spaceinvaders.sprites;
+
+import spaceinvaders.Resources;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes every sprite in a manifest and writes them to a {@link SpritePack},
+ * so the game can start without decoding any images. Run it again whenever
+ * a sprite changes.
+ * <p>
+ * Usage: SpritePacker [manifest] [pack]
+ */
+public class SpritePacker {
+
+    public static void main(String argv[]) throws IOException {
+        String manifest = argv.length > 0 ? argv[0] : SpriteStore.MANIFEST;
+        Path pack = Paths.get(argv.length > 1 ? argv[1] : SpriteStore.PACK);
+
+        List<String> refs = new ArrayList<>();
+        List<BufferedImage> images = new ArrayList<>();
+        for (String ref : Resources.readManifest(manifest)) {
+            BufferedImage image;
+            try (InputStream in = Resources.open(ref)) {
+                image = ImageIO.read(in);
+            }
+            if (image == null) {
+                throw new IOException("Not an image: " + ref);
+            }
+            refs.add(ref);
+            images.add(image);
+        }
+
+        SpritePack.write(pack, refs, images);
+        System.out.println("Packed " + refs.size() + " sprites into " + pack + " (" + Files.size(pack) + " bytes)");
+    }
+}
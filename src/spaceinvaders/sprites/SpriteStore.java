@@ -1,11 +1,24 @@
 package spaceinvaders.sprites;
 
+import spaceinvaders.Resources;
+
 import javax.imageio.ImageIO;
-import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * A resource manager for sprites in the game. Its often quite important
@@ -13,77 +26,252 @@ import java.util.HashMap;
  * it makes sense to have a central resource loader that goes away, gets
  * your resources and caches them for future use.
  * <p>
- * [singleton]
+ * Loaded sprites are held in an {@link LruCache} with a budget for their
+ * decoded pixels, set with {@link #BUDGET_PROPERTY}. A sprite evicted to
+ * stay within it gives up its space in the atlas, and is loaded again the
+ * next time it's asked for or drawn.
+ * <p>
+ * A store is safe to share between threads, so any number of games can
+ * draw from one atlas and decode each sprite only once.
  * <p>
+ * If a {@link SpritePack} has been written to {@link #PACK}, sprites in it
+ * are copied straight out of the mapped file instead of being decoded.
  *
  * @author Original code base - Kevin Glass, refactors - Andrew Lem
  */
 public class SpriteStore {
     /**
-     * The single instance of this class
+     * Set this system property to true to draw sprites from a VolatileImage
+     */
+    public static final String VOLATILE_PROPERTY = "spaceinvaders.sprites.volatile";
+    /**
+     * Set this system property to true to print how long sprites took to load
+     */
+    public static final String LOAD_REPORT_PROPERTY = "spaceinvaders.sprites.report";
+    /**
+     * The list of every sprite the game uses, one reference per line
+     */
+    public static final String MANIFEST = "sprites/manifest.txt";
+    /**
+     * Set this system property to the most bytes of decoded sprite pixels to keep loaded at once
+     */
+    public static final String BUDGET_PROPERTY = "spaceinvaders.sprites.budget";
+    /**
+     * The pack of pre-decoded sprites written by {@link SpritePacker}, used when it exists
+     */
+    public static final String PACK = "sprites/sprites.pack";
+
+    /**
+     * The mapped pack of pre-decoded sprites, or null to decode every sprite
+     */
+    private SpritePack pack = openPack(Paths.get(PACK));
+    /**
+     * The one sprite handed out for each reference. It stays valid when
+     * evicted from the cache, and loads itself back in when next drawn.
+     */
+    private Map<String, Sprite> sprites = new ConcurrentHashMap<>();
+    /**
+     * The sprites loaded into the atlas, from reference to sprite instance
+     */
+    private LruCache<String, Sprite> cache = new LruCache<>(Long.getLong(BUDGET_PROPERTY, Long.MAX_VALUE),
+            this::load, sprite -> 4L * sprite.getWidth() * sprite.getHeight(), this::evict);
+    /**
+     * The atlas every sprite is packed into
+     */
+    private SpriteAtlas atlas = new SpriteAtlas(SpriteAtlas.DEFAULT_WIDTH, SpriteAtlas.DEFAULT_HEIGHT,
+            Boolean.getBoolean(VOLATILE_PROPERTY));
+    /**
+     * Images being decoded in the background, waiting to be packed when first asked for
+     */
+    private Map<String, CompletableFuture<DecodedImage>> preloading = new ConcurrentHashMap<>();
+    /**
+     * How long each sprite took to find and decode (ns), in the order they were packed
      */
-    private static SpriteStore single = new SpriteStore();
+    private Map<String, Long> loadTimes = Collections.synchronizedMap(new LinkedHashMap<>());
     /**
-     * The cached sprite map, from reference to sprite instance
+     * How long the last preload took from start to finish (ns)
      */
-    private HashMap sprites = new HashMap();
+    private volatile long preloadTime = -1;
 
     /**
-     * Get the single instance of this class
+     * Start decoding every sprite in a manifest on a pool of threads, so the
+     * work is done by the time the game asks for them. Sprites asked for
+     * before they're ready wait for just that one to finish.
      *
-     * @return The single instance of this class
+     * @param manifest The reference to the manifest listing the sprites
+     * @return A future completed once every sprite has been decoded
      */
-    public static SpriteStore get() {
-        return single;
+    public CompletableFuture<Void> preload(String manifest) {
+        List<String> refs = readManifest(manifest);
+        int threads = Math.max(1, Math.min(refs.size(), Runtime.getRuntime().availableProcessors()));
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "Sprite loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long start = System.nanoTime();
+        CompletableFuture<?>[] loads = new CompletableFuture<?>[refs.size()];
+        for (int i = 0; i < refs.size(); i++) {
+            String ref = refs.get(i);
+            loads[i] = preloading.computeIfAbsent(ref, r -> CompletableFuture.supplyAsync(() -> decode(r), pool));
+        }
+        // let the threads go once the queued loads are done
+        pool.shutdown();
+
+        return CompletableFuture.allOf(loads).thenRun(() -> preloadTime = System.nanoTime() - start);
     }
 
     /**
-     * Retrieve a sprite from the store
+     * Retrieve a sprite from the store. Safe to call from any thread.
      *
      * @param ref The reference to the image to use for the sprite
      * @return A sprite instance containing an accelerate image of the request reference
      */
     public Sprite getSprite(String ref) {
-        // if we've already got the sprite in the cache
-        // then just return the existing version
-        if (sprites.get(ref) != null) {
-            return (Sprite) sprites.get(ref);
+        Sprite sprite = cache.get(ref);
+        // a cached sprite should always be in the atlas, but never hand out one that isn't
+        if (!sprite.isResident()) {
+            cache.remove(ref, sprite);
+            sprite = cache.get(ref);
         }
+        return sprite;
+    }
 
-        // otherwise, go away and grab the sprite from the resource
-        // loader
-        BufferedImage sourceImage = null;
-
+    /**
+     * Load a sprite that isn't in the cache, on a miss
+     */
+    private Sprite load(String ref) {
+        // use the preloaded image, or go away and load it now
+        DecodedImage decoded = null;
         try {
-            // The ClassLoader.getResource() ensures we get the sprite
-            // from the appropriate place, this helps with deploying the game
-            // with things like webstart. You could equally do a file look
-            // up here.
-//			URL url = this.getClass().getClassLoader().getResource(ref);
-            File file = new File(ref);
-
-            if (file == null) {
-                fail("Can't find ref: " + ref);
-            }
+            CompletableFuture<DecodedImage> preloaded = preloading.remove(ref);
+            decoded = preloaded != null ? preloaded.join() : decode(ref);
+        } catch (UncheckedIOException | CompletionException e) {
+            fail("Failed to load: " + ref);
+        }
+
+        // pack our source image into the shared accelerated atlas along with
+        // a mask of its solid pixels, reusing the sprite for this reference
+        // if it was loaded before
+        Sprite sprite = sprites.computeIfAbsent(ref, r -> new Sprite(this, r));
+        synchronized (atlas) {
+            atlas.pack(decoded.image, decoded.collisionMask, sprite);
+        }
+        loadTimes.put(ref, decoded.loadTime);
+
+        return sprite;
+    }
+
+    /**
+     * Give up an evicted sprite's region of the atlas. Called with the cache
+     * locked, so the sprite can't be loaded back in until this is done.
+     */
+    private void evict(String ref, Sprite sprite) {
+        synchronized (atlas) {
+            atlas.free(sprite);
+        }
+    }
 
+    /**
+     * Read and decode an image, along with the mask of its solid pixels. Safe to call from any thread.
+     */
+    private DecodedImage decode(String ref) {
+        long start = System.nanoTime();
+        BufferedImage packed = pack != null ? pack.read(ref) : null;
+        if (packed != null) {
+            return new DecodedImage(packed, CollisionMask.fromImage(packed), System.nanoTime() - start);
+        }
+        try (InputStream in = Resources.open(ref)) {
             // use ImageIO to read the image in
-            sourceImage = ImageIO.read(file);
+            BufferedImage image = ImageIO.read(in);
+            if (image == null) {
+                throw new IOException("Not an image: " + ref);
+            }
+            return new DecodedImage(image, CollisionMask.fromImage(image), System.nanoTime() - start);
         } catch (IOException e) {
-            fail("Failed to load: " + ref);
+            throw new UncheckedIOException(e);
         }
+    }
 
-        // create an accelerated image of the right size to store our sprite in
-        GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
-        Image image = gc.createCompatibleImage(sourceImage.getWidth(), sourceImage.getHeight(), Transparency.BITMASK);
+    /**
+     * Map the sprite pack if there is one. A pack that can't be read is
+     * ignored, since every sprite can still be decoded from its image.
+     */
+    private static SpritePack openPack(Path path) {
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try {
+            return SpritePack.open(path);
+        } catch (IOException e) {
+            System.err.println("Ignoring sprite pack: " + e.getMessage());
+            return null;
+        }
+    }
 
-        // draw our source image into the accelerated image
-        image.getGraphics().drawImage(sourceImage, 0, 0, null);
+    private List<String> readManifest(String manifest) {
+        try {
+            return Resources.readManifest(manifest);
+        } catch (IOException e) {
+            fail("Can't read sprite manifest: " + manifest);
+            return Collections.emptyList();
+        }
+    }
 
-        // create a sprite, add it the cache then return it
-        Sprite sprite = new Sprite(image);
-        sprites.put(ref, sprite);
+    /**
+     * @return The cache of loaded sprites, for its hit, miss and eviction counts
+     */
+    public LruCache<String, Sprite> getCache() {
+        return cache;
+    }
 
-        return sprite;
+    public SpriteAtlas getAtlas() {
+        return atlas;
+    }
+
+    /**
+     * Describe whether each loaded sprite is being drawn from video memory
+     *
+     * @return One line per sprite, plus a summary of the atlas
+     */
+    public String getAccelerationReport() {
+        atlas.validate();
+
+        StringBuilder report = new StringBuilder();
+        report.append("sprite atlas: ").append(atlas.getWidth()).append('x').append(atlas.getHeight())
+                .append(atlas.isVolatile() ? " volatile" : " managed")
+                .append(" accelerated=").append(atlas.isAccelerated())
+                .append(" restores=").append(atlas.getRestoreCount());
+        for (Map.Entry<String, Sprite> entry : cache.snapshot()) {
+            report.append(System.lineSeparator()).append("  ").append(entry.getKey())
+                    .append(" accelerated=").append(entry.getValue().isAccelerated());
+        }
+        return report.toString();
+    }
+
+    /**
+     * Describe how long each sprite took to load
+     *
+     * @return One line per sprite, plus the time taken by the last preload
+     */
+    public String getLoadReport() {
+        StringBuilder report = new StringBuilder();
+        report.append("sprites loaded: ").append(loadTimes.size());
+        if (pack != null) {
+            report.append(" (pack of ").append(pack.size()).append(')');
+        }
+        if (preloadTime >= 0) {
+            report.append(", preload took ").append(preloadTime / 1000).append("us");
+        }
+        synchronized (loadTimes) {
+            for (Map.Entry<String, Long> entry : loadTimes.entrySet()) {
+                report.append(System.lineSeparator()).append("  ").append(entry.getKey())
+                        .append(' ').append(entry.getValue() / 1000).append("us");
+            }
+        }
+        report.append(System.lineSeparator()).append(cache);
+        return report.toString();
     }
 
     /**
@@ -97,4 +285,19 @@ public class SpriteStore {
         System.err.println(message);
         System.exit(0);
     }
-}
\ No newline at end of file
+
+    /**
+     * An image read and decoded ready for packing into the atlas
+     */
+    private static class DecodedImage {
+        private BufferedImage image;
+        private CollisionMask collisionMask;
+        private long loadTime;
+
+        DecodedImage(BufferedImage image, CollisionMask collisionMask, long loadTime) {
+            this.image = image;
+            this.collisionMask = collisionMask;
+            this.loadTime = loadTime;
+        }
+    }
+}
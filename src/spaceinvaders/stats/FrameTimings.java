@@ -0,0 +1,48 @@
+package spaceinvaders.stats;
+
+/**
+ * How long each phase of the game loop has been taking, one
+ * {@link LatencyHistogram} per phase. Everything here is recorded by the
+ * game thread. The figures are published once a second so the overlay
+ * shows recent behaviour rather than an average over the whole session.
+ */
+public class FrameTimings {
+    public static final int FRAME = 0;
+    public static final int MOVE = 1;
+    public static final int COLLISIONS = 2;
+    public static final int INPUT = 3;
+    public static final int SLEEP = 4;
+    public static final String[] PHASE_NAMES = {"frame", "move", "collide", "input", "sleep"};
+    public static final long PUBLISH_INTERVAL_NANOS = 1000000000L;
+
+    private LatencyHistogram[] phases = new LatencyHistogram[PHASE_NAMES.length];
+    private long lastPublished = System.nanoTime();
+
+    public FrameTimings() {
+        for (int i = 0; i < phases.length; i++) {
+            phases[i] = new LatencyHistogram();
+        }
+    }
+
+    public void record(int phase, long nanos) {
+        phases[phase].record(nanos);
+    }
+
+    /**
+     * Publish every phase if it's been long enough since the last time
+     *
+     * @param now The current time from {@link System#nanoTime()}
+     */
+    public void publishIfDue(long now) {
+        if (now - lastPublished >= PUBLISH_INTERVAL_NANOS) {
+            for (LatencyHistogram phase : phases) {
+                phase.publish();
+            }
+            lastPublished = now;
+        }
+    }
+
+    public LatencyHistogram get(int phase) {
+        return phases[phase];
+    }
+}
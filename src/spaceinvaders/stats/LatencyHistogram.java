@@ -0,0 +1,119 @@
+package spaceinvaders.stats;
+
+import java.util.Arrays;
+
+/**
+ * Counts durations in a fixed set of log-spaced buckets, so recording is
+ * just an array increment and the memory used never grows. Each power of
+ * two is split into {@link #SUB_BUCKETS} buckets, which keeps percentiles
+ * within about 12% of the real value.
+ * <p>
+ * Only one thread should record into a histogram. That thread calls
+ * {@link #publish()} every so often to work out the percentiles and start
+ * counting afresh, and any thread can then read the published values.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /**
+     * Durations of 2^40ns (about 18 minutes) and up all land in the last bucket
+     */
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private long[] buckets = new long[BUCKET_COUNT];
+    private long count = 0;
+    private long max = 0;
+
+    private volatile long publishedCount;
+    private volatile long publishedP50;
+    private volatile long publishedP99;
+    private volatile long publishedMax;
+
+    /**
+     * @param nanos The duration to count
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        buckets[bucketFor(nanos)]++;
+        count++;
+        if (nanos > max) {
+            max = nanos;
+        }
+    }
+
+    /**
+     * Work out the percentiles of everything recorded since the last call,
+     * make them available to the getters and clear the counts
+     */
+    public void publish() {
+        publishedP50 = valueAt(0.50);
+        publishedP99 = valueAt(0.99);
+        publishedMax = max;
+        publishedCount = count;
+
+        Arrays.fill(buckets, 0);
+        count = 0;
+        max = 0;
+    }
+
+    /**
+     * @param fraction The fraction of recorded values to be at or below the result, from 0 to 1
+     * @return The upper bound of the bucket holding that value, or 0 if nothing was recorded
+     */
+    public long valueAt(double fraction) {
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(count * fraction));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets[i];
+            if (seen >= target) {
+                return Math.min(upperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    static int bucketFor(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        // the top bit is implied, the next SUB_BUCKET_BITS pick the bucket within this power of two
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = bucket % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (1L << exponent) + (subBucket + 1) * width - 1;
+    }
+
+    public long getCount() {
+        return publishedCount;
+    }
+
+    public long getP50() {
+        return publishedP50;
+    }
+
+    public long getP99() {
+        return publishedP99;
+    }
+
+    public long getMax() {
+        return publishedMax;
+    }
+}
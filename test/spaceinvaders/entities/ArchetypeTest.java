@@ -0,0 +1,110 @@
+package spaceinvaders.entities;
+
+import org.junit.jupiter.api.Test;
+import spaceinvaders.sprites.CollisionMask;
+import spaceinvaders.sprites.Sprite;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks removing dead entities keeps the survivors intact and reachable by
+ * handle, and that handles to removed entities go stale.
+ */
+class ArchetypeTest {
+    private static final Sprite SPRITE = new Sprite(null, 0, 0, 4, 4, new CollisionMask(4, 4, new long[4]));
+
+    @Test
+    void removeDeadSwapsInTheLastEntity() {
+        // small enough to grow along the way
+        Archetype archetype = new Archetype("test", SPRITE, 2);
+        long[] handles = new long[6];
+        for (int i = 0; i < handles.length; i++) {
+            handles[i] = archetype.add(i * 10, i, 0, 0, 1);
+        }
+
+        archetype.kill(1);
+        archetype.kill(3);
+        archetype.kill(5);
+        assertEquals(3, archetype.removeDead());
+        assertEquals(3, archetype.getCount());
+
+        for (int i = 0; i < handles.length; i++) {
+            int index = archetype.indexOf(handles[i]);
+            if (i % 2 == 1) {
+                assertEquals(Archetype.NO_INDEX, index);
+                assertFalse(archetype.isAlive(handles[i]));
+            } else {
+                assertTrue(archetype.isAlive(handles[i]));
+                assertEquals(i * 10, archetype.getOffsetX(index));
+                assertEquals(i, archetype.getOffsetY(index));
+                assertEquals(handles[i], archetype.getHandle(index));
+            }
+        }
+    }
+
+    @Test
+    void removeOnlyVisitsTheGivenEntities() {
+        Archetype archetype = new Archetype("test", SPRITE);
+        long[] handles = new long[6];
+        for (int i = 0; i < handles.length; i++) {
+            handles[i] = archetype.add(i * 10, i, 0, 0, 1);
+        }
+
+        // in any order, including the last entity and a pair next to each other
+        archetype.remove(new int[]{5, 0, 1, 99}, 3);
+        assertEquals(3, archetype.getCount());
+        for (int i = 0; i < handles.length; i++) {
+            int index = archetype.indexOf(handles[i]);
+            if (i == 0 || i == 1 || i == 5) {
+                assertEquals(Archetype.NO_INDEX, index);
+            } else {
+                assertEquals(i * 10, archetype.getOffsetX(index));
+                assertEquals(handles[i], archetype.getHandle(index));
+            }
+        }
+    }
+
+    @Test
+    void reusedSlotsGetANewGeneration() {
+        Archetype archetype = new Archetype("test", SPRITE);
+        long first = archetype.add(0, 0, 0, 0, 1);
+        archetype.kill(archetype.indexOf(first));
+        archetype.removeDead();
+
+        long second = archetype.add(5, 5, 0, 0, 1);
+        assertEquals((int) first, (int) second, "the freed slot is reused");
+        assertNotEquals(first, second);
+        assertEquals(Archetype.NO_INDEX, archetype.indexOf(first));
+        assertEquals(0, archetype.indexOf(second));
+    }
+
+    @Test
+    void clearInvalidatesEveryHandle() {
+        Archetype archetype = new Archetype("test", SPRITE);
+        long[] handles = {archetype.add(0, 0, 0, 0, 1), archetype.add(1, 1, 0, 0, 1)};
+        archetype.setOrigin(30, 40);
+        archetype.clear();
+
+        assertTrue(archetype.isEmpty());
+        for (long handle : handles) {
+            assertEquals(Archetype.NO_INDEX, archetype.indexOf(handle));
+        }
+        assertEquals(0, archetype.getOriginX());
+        assertEquals(0, archetype.getOriginY());
+    }
+
+    @Test
+    void positionsAreRelativeToTheOrigin() {
+        Archetype archetype = new Archetype("test", SPRITE);
+        int index = archetype.indexOf(archetype.add(10, 20, 0, 0, 1));
+        archetype.setOrigin(100, 50);
+        archetype.translate(5, 5);
+
+        assertEquals(115, archetype.getX(index));
+        assertEquals(75, archetype.getY(index));
+        assertEquals(10, archetype.getOffsetX(index));
+    }
+}
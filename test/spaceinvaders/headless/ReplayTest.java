@@ -0,0 +1,86 @@
+package spaceinvaders.headless;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import spaceinvaders.Game;
+import spaceinvaders.input.InputEventRing;
+import spaceinvaders.input.InputRecording;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Records a session of random input and checks replaying it reproduces
+ * every checkpoint and the final state, and that a game set up differently
+ * is caught drifting from it.
+ */
+class ReplayTest {
+    private static final int TICKS = 3000;
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    static void headless() {
+        System.setProperty("java.awt.headless", "true");
+    }
+
+    @Test
+    void replayMatchesTheRecording() throws IOException {
+        Path recording = record();
+
+        ReplayPlayer player = new ReplayPlayer(new InputRecording(recording));
+        HeadlessRunner runner = new HeadlessRunner(player);
+        runner.run(Long.MAX_VALUE);
+
+        assertFalse(player.hasDiverged(), "diverged at tick " + player.getDivergedAt());
+        assertEquals(TICKS / Game.CHECKPOINT_INTERVAL, player.getCheckpointsPassed());
+        assertTrue(player.isFinalStateMatched());
+        assertEquals(TICKS, runner.getGame().getTickCount());
+    }
+
+    @Test
+    void replayIntoADifferentGameDiverges() throws IOException {
+        Path recording = record();
+
+        ReplayPlayer player = new ReplayPlayer(new InputRecording(recording));
+        Game game = new Game(true);
+        game.setFormationSize(3, 3);
+        new HeadlessRunner(game, player).run(Long.MAX_VALUE);
+
+        assertTrue(player.hasDiverged());
+        assertFalse(player.isFinalStateMatched());
+    }
+
+    private Path record() throws IOException {
+        Path path = directory.resolve("session.rec");
+        Game game = new Game(true);
+        game.startRecording(path);
+
+        InputEventRing events = game.getUserInput().getEvents();
+        Random random = new Random(7);
+        for (int tick = 0; tick < TICKS; tick++) {
+            if (random.nextInt(50) == 0) {
+                events.offer(InputEventRing.KEY_TYPED, 'a', 0, 0, 0);
+            }
+            if (random.nextInt(5) == 0) {
+                events.offer(InputEventRing.MOUSE_MOVED, 0, random.nextInt(Game.MAX_X), 500, 0);
+            }
+            if (random.nextInt(20) == 0) {
+                events.offer(InputEventRing.MOUSE_PRESSED, 1, 0, 0, 0);
+            }
+            if (random.nextInt(20) == 0) {
+                events.offer(InputEventRing.MOUSE_RELEASED, 1, 0, 0, 0);
+            }
+            game.tick(Game.TICK_MS);
+        }
+        game.stop();
+        return path;
+    }
+}
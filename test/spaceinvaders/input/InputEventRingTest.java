@@ -0,0 +1,82 @@
+package spaceinvaders.input;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the ring hands events from one thread to another in order, whole,
+ * and drops them rather than overwriting when full.
+ */
+class InputEventRingTest {
+
+    @Test
+    void capacityRoundsUpToAPowerOfTwo() {
+        assertEquals(2, new InputEventRing(1).getCapacity());
+        assertEquals(64, new InputEventRing(64).getCapacity());
+        assertEquals(128, new InputEventRing(65).getCapacity());
+    }
+
+    @Test
+    void dropsEventsOnceFull() {
+        InputEventRing ring = new InputEventRing(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(InputEventRing.KEY_PRESSED, i, 0, 0, 0));
+        }
+        assertFalse(ring.offer(InputEventRing.KEY_PRESSED, 4, 0, 0, 0));
+        assertEquals(1, ring.getDropped());
+
+        List<Integer> codes = new ArrayList<>();
+        assertEquals(4, ring.drain((type, code, x, y, time) -> codes.add(code)));
+        assertEquals(List.of(0, 1, 2, 3), codes);
+
+        // draining frees the slots again
+        assertTrue(ring.offer(InputEventRing.KEY_RELEASED, 5, 0, 0, 0));
+        assertEquals(1, ring.drain((type, code, x, y, time) -> assertEquals(5, code)));
+        assertEquals(0, ring.drain((type, code, x, y, time) -> { }));
+    }
+
+    @Test
+    void singleProducerSingleConsumer() throws InterruptedException {
+        int events = 200_000;
+        InputEventRing ring = new InputEventRing(64);
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < events; i++) {
+                // every field is derived from the sequence number, so a half written slot shows up
+                while (!ring.offer(InputEventRing.MOUSE_MOVED, i, i * 3, -i, i * 7L)) {
+                    // let the consumer run even with a single CPU
+                    Thread.yield();
+                }
+            }
+        });
+        producer.start();
+
+        int[] next = {0};
+        AtomicReference<String> failure = new AtomicReference<>();
+        long deadline = System.nanoTime() + 60_000_000_000L;
+        while (next[0] < events && failure.get() == null && System.nanoTime() < deadline) {
+            int drained = ring.drain((type, code, x, y, time) -> {
+                if (code != next[0] || x != code * 3 || y != -code || time != code * 7L
+                        || type != InputEventRing.MOUSE_MOVED) {
+                    failure.compareAndSet(null, "expected event " + next[0] + " but got " + code
+                            + " (" + x + ", " + y + ", " + time + ")");
+                }
+                next[0]++;
+            });
+            if (drained == 0) {
+                Thread.yield();
+            }
+        }
+        producer.join();
+
+        assertNull(failure.get());
+        assertEquals(events, next[0]);
+    }
+}
@@ -0,0 +1,96 @@
+package spaceinvaders.levels;
+
+import org.junit.jupiter.api.Test;
+import spaceinvaders.EnemyFormation;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks level files are read as documented, and that ones that can't be
+ * understood or couldn't be played are rejected.
+ */
+class LevelDefinitionTest {
+
+    @Test
+    void parsesSettingsAndLayout() throws IOException {
+        LevelDefinition level = LevelDefinition.parse("test", List.of(
+                "# a comment",
+                "speed 80",
+                "speedup 1.05   # trailing comment",
+                "advance 12",
+                "gap 40 20",
+                "origin 100 50",
+                "",
+                "layout",
+                "2.2",
+                ".1"));
+
+        assertEquals(80, level.getSpeed());
+        assertEquals(1.05, level.getSpeedIncrease());
+        assertEquals(12, level.getAdvanceY());
+        assertEquals(3, level.getEnemyCount());
+        assertArrayEquals(new double[]{0, 40, 80}, level.getColumnOffsets());
+        assertArrayEquals(new int[]{1, 1, 1}, level.getColumnCounts());
+        assertArrayEquals(new double[]{0, 20}, level.getRowOffsets());
+        assertArrayEquals(new int[]{2, 1}, level.getRowCounts());
+    }
+
+    @Test
+    void advanceMayBeZero() throws IOException {
+        assertEquals(0, LevelDefinition.parse("test", List.of("advance 0", "layout", "1")).getAdvanceY());
+    }
+
+    @Test
+    void leftOutSettingsKeepTheDefaults() throws IOException {
+        LevelDefinition level = LevelDefinition.parse("test", List.of("layout", "1"));
+
+        assertEquals(EnemyFormation.DEFAULT_ENEMY_MOVE_SPEED, level.getSpeed());
+        assertEquals(EnemyFormation.DEFAULT_ENEMY_MOVE_SPEED_INCREASE, level.getSpeedIncrease());
+        assertEquals(EnemyFormation.DEFAULT_ENEMY_ADVANCE_Y, level.getAdvanceY());
+    }
+
+    @Test
+    void wideLayoutsAreSqueezedOnScreen() throws IOException {
+        LevelDefinition level = LevelDefinition.parse("test", List.of("origin 300 50", "layout", "1".repeat(100)));
+        double[] columns = level.getColumnOffsets();
+
+        assertTrue(columns[1] > 0);
+        assertTrue(300 + columns[columns.length - 1] < 800 - 300);
+    }
+
+    @Test
+    void rejectsBadFiles() {
+        assertRejected("test:1: unknown setting colour", "colour red", "layout", "1");
+        assertRejected("test:1: bad value for speed", "speed fast", "layout", "1");
+        assertRejected("test:1: bad value for gap", "gap 10", "layout", "1");
+        assertRejected("test:2: unexpected 'x' in layout", "layout", "1x1");
+        assertRejected("test: no layout", "speed 80");
+        assertRejected("test: no layout", "layout", "# nothing but a comment");
+    }
+
+    @Test
+    void rejectsUnplayableLevels() {
+        assertRejected("test: no enemies in layout", "layout", "...", "..");
+        assertRejected("test:1: speed must be more than 0", "speed -75", "layout", "1");
+        assertRejected("test:1: speed must be more than 0", "speed 0", "layout", "1");
+        assertRejected("test:1: speedup must be more than 0", "speedup 0", "layout", "1");
+        assertRejected("test:1: speedup must be more than 0", "speedup -1.03", "layout", "1");
+        assertRejected("test:1: advance can't be negative", "advance -10", "layout", "1");
+        assertRejected("test:1: gaps must be more than 0", "gap 0 10", "layout", "1");
+        assertRejected("test:1: gaps must be more than 0", "gap 10 -5", "layout", "1");
+        assertRejected("test:1: origin must be in the top left quarter of the screen", "origin 400 50", "layout", "1");
+        assertRejected("test:1: origin must be in the top left quarter of the screen", "origin 100 300", "layout", "1");
+        assertRejected("test:1: origin must be in the top left quarter of the screen", "origin -1 50", "layout", "1");
+    }
+
+    private static void assertRejected(String message, String... lines) {
+        IOException e = assertThrows(IOException.class, () -> LevelDefinition.parse("test", List.of(lines)));
+        assertEquals(message, e.getMessage());
+    }
+}
@@ -0,0 +1,74 @@
+package spaceinvaders.render;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Checks the consumer always gets the latest complete value, and never a
+ * buffer the producer is still writing.
+ */
+class TripleBufferTest {
+
+    @Test
+    void acquireReturnsTheLatestPublished() {
+        TripleBuffer<String> buffer = new TripleBuffer<>("a", "b", "c");
+        // nothing published yet, so the consumer gets a buffer the producer isn't using
+        assertNotSame(buffer.getBack(), buffer.acquire());
+
+        String first = buffer.getBack();
+        buffer.publish();
+        assertSame(first, buffer.acquire());
+        // nothing new, so the same one again
+        assertSame(first, buffer.acquire());
+
+        buffer.publish();
+        String third = buffer.getBack();
+        buffer.publish();
+        // the second publish was overtaken by the third before it was seen
+        assertSame(third, buffer.acquire());
+        assertNotSame(buffer.getBack(), buffer.acquire());
+        // the one the consumer let go of is reused rather than a new one made
+        buffer.publish();
+        assertSame(first, buffer.getBack());
+    }
+
+    @Test
+    void singleProducerSingleConsumer() throws InterruptedException {
+        int frames = 200_000;
+        TripleBuffer<long[]> buffer = new TripleBuffer<>(new long[2], new long[2], new long[2]);
+        Thread producer = new Thread(() -> {
+            for (long frame = 1; frame <= frames; frame++) {
+                long[] back = buffer.getBack();
+                back[0] = frame;
+                back[1] = frame;
+                buffer.publish();
+            }
+        });
+        producer.start();
+
+        AtomicReference<String> failure = new AtomicReference<>();
+        long last = 0;
+        long deadline = System.nanoTime() + 60_000_000_000L;
+        while (last < frames && failure.get() == null && System.nanoTime() < deadline) {
+            long[] front = buffer.acquire();
+            long first = front[0];
+            long second = front[1];
+            if (first != second) {
+                failure.set("torn value " + first + "/" + second);
+            } else if (first < last) {
+                failure.set("went back from " + last + " to " + first);
+            }
+            last = first;
+        }
+        producer.join();
+
+        assertNull(failure.get());
+        assertEquals(frames, buffer.acquire()[0]);
+    }
+}
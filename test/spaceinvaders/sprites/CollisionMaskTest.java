@@ -0,0 +1,88 @@
+package spaceinvaders.sprites;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the packed mask test against a pixel by pixel comparison.
+ */
+class CollisionMaskTest {
+
+    @Test
+    void overlapsMatchesBruteForce() {
+        Random random = new Random(1);
+        for (int i = 0; i < 5000; i++) {
+            // cover masks narrower than, equal to and wider than a 64 bit word
+            boolean[][] a = randomPixels(random, 1 + random.nextInt(150), 1 + random.nextInt(12));
+            boolean[][] b = randomPixels(random, 1 + random.nextInt(150), 1 + random.nextInt(12));
+            int ax = random.nextInt(200) - 100;
+            int ay = random.nextInt(20) - 10;
+            int bx = random.nextInt(200) - 100;
+            int by = random.nextInt(20) - 10;
+
+            boolean expected = bruteForce(a, ax, ay, b, bx, by);
+            assertEquals(expected, CollisionMask.overlaps(toMask(a), ax, ay, toMask(b), bx, by),
+                    "case " + i);
+            assertEquals(expected, CollisionMask.overlaps(toMask(b), bx, by, toMask(a), ax, ay),
+                    "case " + i + " swapped");
+        }
+    }
+
+    @Test
+    void touchingEdgesDontOverlap() {
+        boolean[][] solid = new boolean[4][70];
+        for (boolean[] row : solid) {
+            java.util.Arrays.fill(row, true);
+        }
+        CollisionMask mask = toMask(solid);
+
+        assertFalse(CollisionMask.overlaps(mask, 0, 0, mask, 70, 0));
+        assertFalse(CollisionMask.overlaps(mask, 0, 0, mask, 0, 4));
+        assertTrue(CollisionMask.overlaps(mask, 0, 0, mask, 69, 3));
+    }
+
+    private static boolean[][] randomPixels(Random random, int width, int height) {
+        // mostly sparse, so plenty of boxes intersect without any pixels touching
+        double density = random.nextDouble() * 0.2;
+        boolean[][] pixels = new boolean[height][width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                pixels[y][x] = random.nextDouble() < density;
+            }
+        }
+        return pixels;
+    }
+
+    private static CollisionMask toMask(boolean[][] pixels) {
+        int height = pixels.length;
+        int width = pixels[0].length;
+        int wordsPerRow = (width + 63) >>> 6;
+        long[] bits = new long[wordsPerRow * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (pixels[y][x]) {
+                    bits[y * wordsPerRow + (x >>> 6)] |= 1L << (x & 63);
+                }
+            }
+        }
+        return new CollisionMask(width, height, bits);
+    }
+
+    private static boolean bruteForce(boolean[][] a, int ax, int ay, boolean[][] b, int bx, int by) {
+        for (int y = 0; y < a.length; y++) {
+            for (int x = 0; x < a[y].length; x++) {
+                int u = ax + x - bx;
+                int v = ay + y - by;
+                if (a[y][x] && v >= 0 && v < b.length && u >= 0 && u < b[v].length && b[v][u]) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
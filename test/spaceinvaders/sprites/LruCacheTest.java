@@ -0,0 +1,129 @@
+package spaceinvaders.sprites;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the cache evicts least recently used values to stay in budget,
+ * and loads each key once however many threads ask for it.
+ */
+class LruCacheTest {
+
+    @Test
+    void evictsLeastRecentlyUsedOverBudget() {
+        List<String> loaded = new ArrayList<>();
+        List<String> evicted = new ArrayList<>();
+        LruCache<String, String> cache = new LruCache<>(3, key -> {
+            loaded.add(key);
+            return key.toUpperCase();
+        }, value -> 1, (key, value) -> evicted.add(key));
+
+        cache.get("a");
+        cache.get("b");
+        cache.get("c");
+        // "a" is now the most recently used, leaving "b" the eldest
+        assertEquals("A", cache.get("a"));
+        cache.get("d");
+
+        assertEquals(List.of("b"), evicted);
+        assertEquals(3, cache.size());
+        assertEquals(3, cache.getBytes());
+        assertEquals(List.of("c", "a", "d"), keys(cache));
+
+        // an evicted key is loaded again
+        cache.get("b");
+        assertEquals(List.of("a", "b", "c", "d", "b"), loaded);
+        assertEquals(1, cache.getHits());
+        assertEquals(5, cache.getMisses());
+        assertEquals(2, cache.getEvictions());
+    }
+
+    @Test
+    void keepsTheLastValueEvenOverBudget() {
+        LruCache<String, String> cache = new LruCache<>(1, String::toUpperCase, value -> 10, (key, value) -> { });
+
+        cache.get("a");
+        assertEquals(1, cache.size());
+        cache.get("b");
+        assertEquals(List.of("b"), keys(cache));
+        assertEquals(10, cache.getBytes());
+    }
+
+    @Test
+    void removeOnlyDropsTheGivenValue() {
+        LruCache<String, Object> cache = new LruCache<>(Long.MAX_VALUE, key -> new Object(), value -> 1, (key, value) -> { });
+        Object value = cache.get("a");
+
+        assertFalse(cache.remove("a", new Object()));
+        assertSame(value, cache.get("a"));
+        assertTrue(cache.remove("a", value));
+        assertEquals(0, cache.getBytes());
+        assertFalse(value == cache.get("a"), "loaded afresh after removal");
+    }
+
+    @Test
+    void concurrentGetsLoadOnce() throws Exception {
+        int threads = 8;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        LruCache<String, Object> cache = new LruCache<>(Long.MAX_VALUE, key -> {
+            if (!key.equals("slow")) {
+                return key;
+            }
+            loads.incrementAndGet();
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return new Object();
+        }, value -> 1, (key, value) -> { });
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            results.add(pool.submit(() -> cache.get("slow")));
+            assertTrue(loading.await(10, TimeUnit.SECONDS));
+            for (int i = 1; i < threads; i++) {
+                results.add(pool.submit(() -> cache.get("slow")));
+            }
+
+            // other keys can be fetched while one is loading
+            assertEquals("fast", cache.get("fast"));
+
+            release.countDown();
+            Object value = results.get(0).get(10, TimeUnit.SECONDS);
+            for (Future<Object> result : results) {
+                assertSame(value, result.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+            assertEquals(2, cache.size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static List<String> keys(LruCache<String, ?> cache) {
+        List<String> keys = new ArrayList<>();
+        for (Map.Entry<String, ?> entry : cache.snapshot()) {
+            keys.add(entry.getKey());
+        }
+        return keys;
+    }
+}
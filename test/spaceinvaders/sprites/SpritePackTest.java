@@ -0,0 +1,72 @@
+package spaceinvaders.sprites;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks sprites come back out of a pack pixel for pixel, and that a pack
+ * cut short is refused with an IOException rather than read past its end.
+ */
+class SpritePackTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsBackWhatWasWritten() throws IOException {
+        BufferedImage first = image(3, 2, 0);
+        BufferedImage second = image(70, 5, 100);
+        Path path = directory.resolve("sprites.pack");
+        SpritePack.write(path, List.of("sprites/a.gif", "sprites/b.gif"), List.of(first, second));
+
+        SpritePack pack = SpritePack.open(path);
+        assertEquals(2, pack.size());
+        assertPixelsEqual(first, pack.read("sprites/a.gif"));
+        assertPixelsEqual(second, pack.read("sprites/b.gif"));
+        assertNull(pack.read("sprites/missing.gif"));
+    }
+
+    @Test
+    void rejectsTruncatedPacks() throws IOException {
+        Path path = directory.resolve("sprites.pack");
+        SpritePack.write(path, List.of("sprites/a.gif", "sprites/b.gif"), List.of(image(3, 2, 0), image(4, 4, 7)));
+        byte[] whole = Files.readAllBytes(path);
+
+        Path truncated = directory.resolve("truncated.pack");
+        for (int length = 0; length < whole.length; length++) {
+            Files.write(truncated, Arrays.copyOf(whole, length));
+            assertThrows(IOException.class, () -> SpritePack.open(truncated), "cut to " + length + " bytes");
+        }
+    }
+
+    private static BufferedImage image(int width, int height, int seed) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, (seed + x * 31 + y * 17) * 0x01010101);
+            }
+        }
+        return image;
+    }
+
+    private static void assertPixelsEqual(BufferedImage expected, BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        int width = expected.getWidth();
+        int height = expected.getHeight();
+        assertArrayEquals(expected.getRGB(0, 0, width, height, null, 0, width),
+                actual.getRGB(0, 0, width, height, null, 0, width));
+    }
+}
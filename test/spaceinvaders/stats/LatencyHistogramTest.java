@@ -0,0 +1,78 @@
+package spaceinvaders.stats;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks every value lands in a bucket whose bounds hold it, and that the
+ * buckets are narrow enough for the promised precision.
+ */
+class LatencyHistogramTest {
+    /**
+     * The largest value that still gets its own bucket, rather than the last catch-all one
+     */
+    private static final long LARGEST = (1L << 41) - 1;
+
+    @Test
+    void bucketsHoldTheirValues() {
+        for (long value = 0; value < 100_000; value++) {
+            assertBounds(value);
+        }
+        for (int exponent = 17; exponent <= 40; exponent++) {
+            long power = 1L << exponent;
+            assertBounds(power - 1);
+            assertBounds(power);
+            assertBounds(power + 1);
+            assertBounds(power + power / 3);
+        }
+        assertBounds(LARGEST);
+    }
+
+    @Test
+    void hugeValuesShareTheLastBucket() {
+        int last = LatencyHistogram.bucketFor(LARGEST);
+        assertEquals(last, LatencyHistogram.bucketFor(LARGEST + 1));
+        assertEquals(last, LatencyHistogram.bucketFor(Long.MAX_VALUE));
+    }
+
+    @Test
+    void percentilesAreWithinABucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertBetween(500_000, 500_000 * 9 / 8, histogram.valueAt(0.5));
+        assertBetween(990_000, 990_000 * 9 / 8, histogram.valueAt(0.99));
+        // never beyond the largest value actually recorded
+        assertEquals(1_000_000, histogram.valueAt(1.0));
+
+        histogram.publish();
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMax());
+        assertEquals(0, histogram.valueAt(0.5), "counts start afresh once published");
+    }
+
+    @Test
+    void negativeDurationsCountAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        assertEquals(0, histogram.valueAt(1.0));
+    }
+
+    private static void assertBounds(long value) {
+        int bucket = LatencyHistogram.bucketFor(value);
+        long upper = LatencyHistogram.upperBound(bucket);
+        long lower = bucket == 0 ? 0 : LatencyHistogram.upperBound(bucket - 1) + 1;
+        assertTrue(lower <= value && value <= upper,
+                value + " in bucket " + bucket + " [" + lower + ", " + upper + "]");
+        // each power of two is split into SUB_BUCKETS, so a bucket is at most an eighth of its lower bound wide
+        assertTrue(upper - lower + 1 <= Math.max(1, lower / LatencyHistogram.SUB_BUCKETS),
+                value + " in a bucket " + (upper - lower + 1) + " wide");
+    }
+
+    private static void assertBetween(long low, long high, long actual) {
+        assertTrue(low <= actual && actual <= high, actual + " not in [" + low + ", " + high + "]");
+    }
+}